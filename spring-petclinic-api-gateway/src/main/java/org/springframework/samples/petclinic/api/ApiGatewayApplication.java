@@ -20,6 +20,7 @@ import io.github.resilience4j.timelimiter.TimeLimiterConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
 import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
 import org.springframework.cloud.client.circuitbreaker.Customizer;
@@ -28,7 +29,18 @@ import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.api.system.ClientsProperties;
+import org.springframework.samples.petclinic.api.system.DeadlineProperties;
+import org.springframework.samples.petclinic.api.system.HedgingProperties;
+import org.springframework.samples.petclinic.api.system.LoadBalancingProperties;
+import org.springframework.samples.petclinic.api.system.OwnerDetailsCacheProperties;
+import org.springframework.samples.petclinic.api.system.OwnersBatchProperties;
+import org.springframework.samples.petclinic.api.system.RequestBatchProperties;
+import org.springframework.samples.petclinic.api.system.VisitsBatchProperties;
+import org.springframework.samples.petclinic.api.system.VisitsSnapshotsProperties;
+import org.springframework.samples.petclinic.api.system.WarmUpProperties;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.server.RequestPredicates;
@@ -36,14 +48,16 @@ import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
-import java.time.Duration;
-
 
 /**
  * @author Maciej Szarlinski
  */
 @EnableDiscoveryClient
 @SpringBootApplication
+@EnableConfigurationProperties({OwnersBatchProperties.class, ClientsProperties.class,
+    OwnerDetailsCacheProperties.class, VisitsBatchProperties.class, LoadBalancingProperties.class,
+    HedgingProperties.class, VisitsSnapshotsProperties.class, RequestBatchProperties.class,
+    DeadlineProperties.class, WarmUpProperties.class})
 public class ApiGatewayApplication {
 
     public static void main(String[] args) {
@@ -73,18 +87,22 @@ public class ApiGatewayApplication {
     RouterFunction<?> routerFunction() {
         RouterFunction router = RouterFunctions.resources("/**", new ClassPathResource("static/"))
             .andRoute(RequestPredicates.GET("/"),
-                request -> ServerResponse.ok().contentType(MediaType.TEXT_HTML).bodyValue(indexHtml));
+                request -> ServerResponse.ok()
+                    .contentType(MediaType.TEXT_HTML)
+                    // revalidated on every load so that new asset fingerprints are picked up
+                    .cacheControl(CacheControl.noCache())
+                    .bodyValue(indexHtml));
         return router;
     }
 
     /**
-     * Default Resilience4j circuit breaker configuration
+     * Default Resilience4j circuit breaker configuration, giving up on a call when the request deadline is reached
      */
     @Bean
-    public Customizer<ReactiveResilience4JCircuitBreakerFactory> defaultCustomizer() {
+    public Customizer<ReactiveResilience4JCircuitBreakerFactory> defaultCustomizer(DeadlineProperties deadlineProperties) {
         return factory -> factory.configureDefault(id -> new Resilience4JConfigBuilder(id)
             .circuitBreakerConfig(CircuitBreakerConfig.ofDefaults())
-            .timeLimiterConfig(TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(10)).build())
+            .timeLimiterConfig(TimeLimiterConfig.custom().timeoutDuration(deadlineProperties.timeout()).build())
             .build());
     }
 }
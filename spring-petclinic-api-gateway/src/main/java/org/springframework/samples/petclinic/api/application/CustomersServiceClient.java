@@ -15,26 +15,44 @@
  */
 package org.springframework.samples.petclinic.api.application;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.samples.petclinic.api.dto.OwnerDetails;
+import org.springframework.samples.petclinic.api.system.HedgingProperties;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+import java.util.function.Consumer;
+
 /**
  * @author Maciej Szarlinski
  */
 @Component
 public class CustomersServiceClient {
 
-    private final WebClient.Builder webClientBuilder;
+    private final WebClient webClient;
+
+    private final RequestCoalescer<Integer, OwnerDetails> ownerRequests;
+
+    private final RequestHedger ownerHedger;
 
-    public CustomersServiceClient(WebClient.Builder webClientBuilder) {
-        this.webClientBuilder = webClientBuilder;
+    public CustomersServiceClient(@Qualifier("customersServiceWebClient") WebClient webClient, MeterRegistry meterRegistry,
+                                  HedgingProperties hedgingProperties) {
+        this.webClient = webClient;
+        this.ownerRequests = new RequestCoalescer<>("customers-service.owners", meterRegistry);
+        this.ownerHedger = new RequestHedger("customers-service.owners", hedgingProperties, meterRegistry);
     }
 
     public Mono<OwnerDetails> getOwner(final int ownerId) {
-        return webClientBuilder.build().get()
+        return ownerRequests.execute(ownerId, () -> ownerHedger.execute(attributes -> fetchOwner(ownerId, attributes)));
+    }
+
+    private Mono<OwnerDetails> fetchOwner(final int ownerId, Consumer<Map<String, Object>> attributes) {
+        return webClient.get()
             .uri("http://customers-service/owners/{ownerId}", ownerId)
+            .attributes(attributes)
             .retrieve()
             .bodyToMono(OwnerDetails.class);
     }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.application;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.samples.petclinic.api.dto.OwnerDetails;
+import org.springframework.samples.petclinic.api.dto.PetDetails;
+import org.springframework.samples.petclinic.api.system.OwnerDetailsCacheProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded cache of assembled {@link OwnerDetails}, keyed by owner id.
+ * <p>
+ * Entries expire after a TTL and are evicted as soon as an {@link OwnerChangedEvent} is received for the
+ * owner or for one of its pets. Hit, miss and eviction counts are published as {@code cache.*} metrics
+ * tagged {@code cache=ownerDetails}.
+ * <p>
+ * A read that started before a write may complete after the write has evicted the owner. To keep it from caching
+ * what it read, readers take the owner's {@link #generation(int) generation} before reading and hand it back to
+ * {@link #put(OwnerDetails, long)}, which drops the details when the owner has been evicted in between.
+ */
+@Component
+public class OwnerDetailsCache {
+
+    // generations are striped by owner id, so an owner sharing the stripe of a changed one may skip a put now and then
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final boolean enabled;
+
+    private final Cache<Integer, OwnerDetails> owners;
+
+    // Visits writes may only identify the pet, so cached pets are indexed to find their owner
+    private final Map<Integer, Integer> ownerIdsByPetId = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public OwnerDetailsCache(OwnerDetailsCacheProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.owners = Caffeine.newBuilder()
+            .maximumSize(properties.maximumSize())
+            .expireAfterWrite(properties.ttl())
+            .recordStats()
+            .removalListener(this::onRemoval)
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, owners, "ownerDetails");
+    }
+
+    /**
+     * @return the cached owner details, or {@code null} if they are not cached
+     */
+    public OwnerDetails get(int ownerId) {
+        return enabled ? owners.getIfPresent(ownerId) : null;
+    }
+
+    /**
+     * @return the generation of the owner, to be taken before reading the details to {@link #put(OwnerDetails, long)}
+     */
+    public long generation(int ownerId) {
+        return generations.get(stripe(ownerId));
+    }
+
+    /**
+     * Caches owner details, unless the owner has been evicted since {@code generation} was taken.
+     */
+    public void put(OwnerDetails owner, long generation) {
+        if (!enabled || generation(owner.id()) != generation) {
+            return;
+        }
+        owner.pets().forEach(pet -> ownerIdsByPetId.put(pet.id(), owner.id()));
+        owners.put(owner.id(), owner);
+        // an eviction racing with the put bumps the generation before evicting: either it evicted after the put,
+        // or the put sees the new generation here and undoes itself
+        if (generation(owner.id()) != generation) {
+            owners.asMap().remove(owner.id(), owner);
+        }
+    }
+
+    @EventListener
+    public void onOwnerChanged(OwnerChangedEvent event) {
+        if (event.ownerId() != null) {
+            evict(event.ownerId());
+        }
+        if (event.petId() != null) {
+            Integer ownerId = ownerIdsByPetId.get(event.petId());
+            if (ownerId != null) {
+                evict(ownerId);
+            }
+        }
+    }
+
+    private void evict(int ownerId) {
+        generations.incrementAndGet(stripe(ownerId));
+        owners.invalidate(ownerId);
+    }
+
+    private static int stripe(int ownerId) {
+        return Math.floorMod(ownerId, GENERATION_STRIPES);
+    }
+
+    private void onRemoval(Integer ownerId, OwnerDetails owner, RemovalCause cause) {
+        if (owner != null && cause != RemovalCause.REPLACED) {
+            for (PetDetails pet : owner.pets()) {
+                ownerIdsByPetId.remove(pet.id(), ownerId);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Shares one in-flight call between concurrent callers asking for the same key (a.k.a. singleflight).
+ * <p>
+ * The first caller for a key starts the call; callers arriving before it completes receive the same value,
+ * empty completion or error. A caller cancelling does not affect the others, and the call itself is only
+ * cancelled once every caller has cancelled. Completed calls are not cached.
+ * <p>
+ * The call runs with the Reactor context of the caller that started it, so that it carries the
+ * {@link org.springframework.samples.petclinic.api.system.RequestDeadline deadline} of that caller.
+ * <p>
+ * Callers are counted in {@code gateway.coalescing.calls}, tagged with the coalescer name and
+ * {@code result=executed} or {@code result=coalesced}.
+ *
+ * @param <K> key identifying identical calls
+ * @param <V> call result
+ */
+public class RequestCoalescer<K, V> {
+
+    private final ConcurrentMap<K, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter executed;
+
+    private final Counter coalesced;
+
+    public RequestCoalescer(String name, MeterRegistry meterRegistry) {
+        this.executed = Counter.builder("gateway.coalescing.calls")
+            .tag("name", name)
+            .tag("result", "executed")
+            .register(meterRegistry);
+        this.coalesced = Counter.builder("gateway.coalescing.calls")
+            .tag("name", name)
+            .tag("result", "coalesced")
+            .register(meterRegistry);
+    }
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.deferContextual(context -> {
+            while (true) {
+                InFlight created = null;
+                InFlight entry = inFlight.get(key);
+                if (entry == null) {
+                    created = new InFlight(key);
+                    entry = inFlight.putIfAbsent(key, created);
+                    if (entry == null) {
+                        entry = created;
+                    }
+                }
+                if (entry.acquire()) {
+                    if (entry == created) {
+                        executed.increment();
+                        created.start(call, context);
+                    } else {
+                        coalesced.increment();
+                    }
+                    return entry.result();
+                }
+                // the call was cancelled by all its callers in the meantime
+                inFlight.remove(key, entry);
+            }
+        });
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private final class InFlight {
+
+        private static final int CLOSED = -1;
+
+        private final K key;
+
+        private final Sinks.One<V> sink = Sinks.one();
+
+        private final AtomicInteger callers = new AtomicInteger();
+
+        private volatile Disposable upstream;
+
+        private InFlight(K key) {
+            this.key = key;
+        }
+
+        private void start(Supplier<Mono<V>> call, ContextView context) {
+            upstream = Mono.defer(call)
+                .doFinally(signal -> inFlight.remove(key, this))
+                // subscribed apart from the caller, which would otherwise not pass its context on
+                .contextWrite(context)
+                .subscribe(
+                    value -> sink.tryEmitValue(value),
+                    error -> sink.tryEmitError(error),
+                    () -> sink.tryEmitEmpty());
+        }
+
+        private boolean acquire() {
+            while (true) {
+                int current = callers.get();
+                if (current == CLOSED) {
+                    return false;
+                }
+                if (callers.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private Mono<V> result() {
+            return sink.asMono()
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        release();
+                    }
+                });
+        }
+
+        private void release() {
+            if (callers.decrementAndGet() == 0 && callers.compareAndSet(0, CLOSED)) {
+                inFlight.remove(key, this);
+                Disposable subscription = upstream;
+                if (subscription != null) {
+                    subscription.dispose();
+                }
+            }
+        }
+    }
+}
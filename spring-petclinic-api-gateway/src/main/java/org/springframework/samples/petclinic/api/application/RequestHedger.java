@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.samples.petclinic.api.system.HedgedRequest;
+import org.springframework.samples.petclinic.api.system.HedgingProperties;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Sends a second attempt of an idempotent call when the first one has not answered within the recent
+ * {@code percentile} latency; whichever attempt answers first wins and the other one is cancelled.
+ * <p>
+ * An attempt that fails does not end the call while the other one may still answer: the call only fails once
+ * both have, with the error of the first attempt. A first attempt failing before the hedge is sent fails the
+ * call right away, retrying errors being the business of the retry filters, not of the hedging.
+ * <p>
+ * Each attempt is given the request attributes to apply to its {@code WebClient} request, linking both attempts
+ * in a {@link HedgedRequest} so that the hedge goes to another instance. Hedges are capped by a
+ * {@link TokenBucketBudget}.
+ * <p>
+ * Publishes {@code gateway.hedging.calls}, {@code gateway.hedging.hedges} and {@code gateway.hedging.wins}
+ * (hedges answering first) for the hedge and win rates, {@code gateway.hedging.budget.exhausted} and the
+ * {@code gateway.hedging.attempts} latency timer the delay is derived from, all tagged with the hedger name.
+ */
+public class RequestHedger {
+
+    private static final Duration DELAY_REFRESH_INTERVAL = Duration.ofSeconds(1);
+
+    private final boolean enabled;
+
+    private final Duration minDelay;
+
+    private final TokenBucketBudget budget;
+
+    private final Timer attempts;
+
+    private final Counter calls;
+
+    private final Counter hedges;
+
+    private final Counter wins;
+
+    private final Counter budgetExhausted;
+
+    private volatile Duration delay;
+
+    private volatile long delayRefreshedAt;
+
+    public RequestHedger(String name, HedgingProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.minDelay = properties.minDelay();
+        this.delay = properties.minDelay();
+        this.delayRefreshedAt = System.nanoTime();
+        this.budget = new TokenBucketBudget(properties.budgetRatio(), properties.budgetBurst());
+        this.attempts = Timer.builder("gateway.hedging.attempts")
+            .description("Latency of the attempts of hedged calls")
+            .tag("name", name)
+            .publishPercentiles(properties.percentile())
+            .register(meterRegistry);
+        this.calls = counter("gateway.hedging.calls", name, meterRegistry);
+        this.hedges = counter("gateway.hedging.hedges", name, meterRegistry);
+        this.wins = counter("gateway.hedging.wins", name, meterRegistry);
+        this.budgetExhausted = counter("gateway.hedging.budget.exhausted", name, meterRegistry);
+    }
+
+    private static Counter counter(String meterName, String name, MeterRegistry meterRegistry) {
+        return Counter.builder(meterName).tag("name", name).register(meterRegistry);
+    }
+
+    /**
+     * @param call sends one attempt, applying the given attributes to its request
+     */
+    public <V> Mono<V> execute(Function<Consumer<Map<String, Object>>, Mono<V>> call) {
+        if (!enabled) {
+            return call.apply(attributes -> { });
+        }
+        return Mono.defer(() -> {
+            calls.increment();
+            budget.deposit();
+            HedgedRequest hedgedRequest = new HedgedRequest();
+            Consumer<Map<String, Object>> attributes = map -> map.put(HedgedRequest.ATTRIBUTE, hedgedRequest);
+            AtomicReference<Throwable> firstError = new AtomicReference<>();
+            AtomicReference<Throwable> hedgeError = new AtomicReference<>();
+            Sinks.One<Boolean> firstFailed = Sinks.one();
+            Mono<Optional<V>> first = attempt(call, attributes)
+                .doOnError(throwable -> {
+                    firstError.set(throwable);
+                    firstFailed.tryEmitValue(true);
+                });
+            Mono<Optional<V>> hedge = Mono.delay(currentDelay())
+                .takeUntilOther(firstFailed.asMono())
+                .flatMap(tick -> {
+                    if (!budget.tryWithdraw()) {
+                        budgetExhausted.increment();
+                        return Mono.empty();
+                    }
+                    hedges.increment();
+                    return attempt(call, attributes)
+                        .doOnNext(value -> wins.increment())
+                        .doOnError(hedgeError::set);
+                });
+            // the first value wins, empty answers included, and an error only once no attempt is left to answer
+            return Mono.firstWithValue(first, hedge)
+                .onErrorMap(NoSuchElementException.class, e -> firstError.get() != null ? firstError.get()
+                    : hedgeError.get() != null ? hedgeError.get() : e)
+                .flatMap(Mono::justOrEmpty);
+        });
+    }
+
+    private <V> Mono<Optional<V>> attempt(Function<Consumer<Map<String, Object>>, Mono<V>> call,
+                                          Consumer<Map<String, Object>> attributes) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.apply(attributes)
+                .doOnSuccess(value -> attempts.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+        });
+    }
+
+    /**
+     * The percentile is only recomputed once per {@link #DELAY_REFRESH_INTERVAL}, its histogram snapshot being
+     * too expensive to take on every call.
+     */
+    Duration currentDelay() {
+        long now = System.nanoTime();
+        if (now - delayRefreshedAt > DELAY_REFRESH_INTERVAL.toNanos()) {
+            delayRefreshedAt = now;
+            ValueAtPercentile[] percentiles = attempts.takeSnapshot().percentileValues();
+            double percentileNanos = percentiles.length > 0 ? percentiles[0].value(TimeUnit.NANOSECONDS) : 0;
+            delay = percentileNanos > minDelay.toNanos() ? Duration.ofNanos((long) percentileNanos) : minDelay;
+        }
+        return delay;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.application;
+
+/**
+ * Caps extra calls (hedges, retries) to a ratio of the regular calls.
+ * <p>
+ * Every regular call {@link #deposit() deposits} {@code ratio} tokens, up to {@code maxTokens}, and every extra
+ * call {@link #tryWithdraw() withdraws} a whole token. When the downstream service degrades, the extra calls are
+ * therefore bounded to about {@code ratio} of the traffic instead of multiplying it.
+ */
+public class TokenBucketBudget {
+
+    private final double ratio;
+
+    private final double maxTokens;
+
+    private double tokens;
+
+    public TokenBucketBudget(double ratio, double maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    public synchronized void deposit() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    public synchronized boolean tryWithdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
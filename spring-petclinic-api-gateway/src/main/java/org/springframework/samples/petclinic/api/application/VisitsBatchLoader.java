@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.application;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.samples.petclinic.api.dto.VisitDetails;
+import org.springframework.samples.petclinic.api.dto.Visits;
+import org.springframework.samples.petclinic.api.system.RequestDeadline;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Merges visits lookups of concurrent callers into a single visits-service call (DataLoader-style).
+ * <p>
+ * The first caller opens a batch and schedules it to be sent after {@code window}; callers arriving
+ * in the meantime add their pet ids to it. A batch is sent early once it holds {@code maxIds} distinct
+ * pet ids, and a lookup that would not fit is sent on its own. The combined {@link Visits} are split back
+ * per caller through a {@link VisitsIndex}; an error is propagated to every caller of the batch.
+ * <p>
+ * A batch is sent with the Reactor context of the caller with the latest {@link RequestDeadline}, the one
+ * willing to wait the longest, so that the visits-service call carries that deadline.
+ * <p>
+ * The number of distinct pet ids and callers per visits-service call are recorded in
+ * {@code gateway.visits.batch.ids} and {@code gateway.visits.batch.callers}.
+ */
+public class VisitsBatchLoader {
+
+    private final Function<List<Integer>, Mono<Visits>> fetch;
+
+    private final Duration window;
+
+    private final int maxIds;
+
+    private final Scheduler scheduler;
+
+    private final DistributionSummary batchIds;
+
+    private final DistributionSummary batchCallers;
+
+    private Batch current;
+
+    public VisitsBatchLoader(Function<List<Integer>, Mono<Visits>> fetch, Duration window, int maxIds,
+                             Scheduler scheduler, MeterRegistry meterRegistry) {
+        this.fetch = fetch;
+        this.window = window;
+        this.maxIds = maxIds;
+        this.scheduler = scheduler;
+        this.batchIds = DistributionSummary.builder("gateway.visits.batch.ids")
+            .description("Distinct pet ids per visits-service call")
+            .register(meterRegistry);
+        this.batchCallers = DistributionSummary.builder("gateway.visits.batch.callers")
+            .description("Callers served by a single visits-service call")
+            .register(meterRegistry);
+    }
+
+    public Mono<Visits> load(List<Integer> petIds) {
+        return Mono.deferContextual(context -> {
+            if (petIds.isEmpty()) {
+                return Mono.just(new Visits());
+            }
+            if (petIds.size() >= maxIds) {
+                record(petIds.size(), 1);
+                return fetch.apply(petIds);
+            }
+            Waiter waiter = new Waiter(petIds);
+            Batch full = null;
+            Batch ready = null;
+            synchronized (this) {
+                if (current != null && !current.fits(petIds)) {
+                    full = detach();
+                }
+                if (current == null) {
+                    Batch opened = new Batch();
+                    current = opened;
+                    opened.timer = scheduler.schedule(() -> flush(opened), window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                current.add(waiter, context);
+                if (current.ids.size() >= maxIds) {
+                    ready = detach();
+                }
+            }
+            if (full != null) {
+                full.send();
+            }
+            if (ready != null) {
+                ready.send();
+            }
+            return waiter.sink.asMono();
+        });
+    }
+
+    private void flush(Batch batch) {
+        synchronized (this) {
+            if (current != batch) {
+                // already sent because it reached maxIds
+                return;
+            }
+            current = null;
+        }
+        batch.send();
+    }
+
+    private Batch detach() {
+        Batch batch = current;
+        current = null;
+        batch.timer.dispose();
+        return batch;
+    }
+
+    private void record(int ids, int callers) {
+        batchIds.record(ids);
+        batchCallers.record(callers);
+    }
+
+    private final class Batch {
+
+        private final Set<Integer> ids = new LinkedHashSet<>();
+
+        private final List<Waiter> waiters = new ArrayList<>();
+
+        private Disposable timer;
+
+        private ContextView context;
+
+        private boolean fits(List<Integer> petIds) {
+            int added = 0;
+            for (Integer petId : petIds) {
+                if (!ids.contains(petId)) {
+                    added++;
+                }
+            }
+            return ids.size() + added <= maxIds;
+        }
+
+        private void add(Waiter waiter, ContextView callerContext) {
+            ids.addAll(waiter.petIds);
+            waiters.add(waiter);
+            if (context == null || waitsLonger(callerContext, context)) {
+                context = callerContext;
+            }
+        }
+
+        private static boolean waitsLonger(ContextView callerContext, ContextView context) {
+            Optional<RequestDeadline> deadline = RequestDeadline.current(context);
+            if (deadline.isEmpty()) {
+                return false;
+            }
+            return RequestDeadline.current(callerContext)
+                .map(callerDeadline -> callerDeadline.isLaterThan(deadline.get()))
+                .orElse(true);
+        }
+
+        private void send() {
+            record(ids.size(), waiters.size());
+            // subscribed apart from the callers, which would otherwise not pass their context on
+            fetch.apply(List.copyOf(ids)).contextWrite(context).subscribe(
+                this::split,
+                error -> waiters.forEach(waiter -> waiter.sink.tryEmitError(error)),
+                () -> waiters.forEach(waiter -> waiter.sink.tryEmitValue(new Visits())));
+        }
+
+        private void split(Visits visits) {
+            VisitsIndex index = VisitsIndex.of(visits.items());
+            for (Waiter waiter : waiters) {
+                List<VisitDetails> items = new ArrayList<>();
+                for (Integer petId : waiter.petIds) {
+                    items.addAll(index.visitsOf(petId));
+                }
+                waiter.sink.tryEmitValue(new Visits(items));
+            }
+        }
+    }
+
+    private static final class Waiter {
+
+        private final List<Integer> petIds;
+
+        private final Sinks.One<Visits> sink = Sinks.one();
+
+        private Waiter(List<Integer> petIds) {
+            this.petIds = List.copyOf(new LinkedHashSet<>(petIds));
+        }
+    }
+}
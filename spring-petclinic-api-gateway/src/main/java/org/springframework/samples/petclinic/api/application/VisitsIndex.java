@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.application;
+
+import org.springframework.samples.petclinic.api.dto.OwnerDetails;
+import org.springframework.samples.petclinic.api.dto.PetDetails;
+import org.springframework.samples.petclinic.api.dto.VisitDetails;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Visits grouped by pet id, built in one pass over a visits-service response.
+ * <p>
+ * Pet ids are kept in an open-addressing table of primitive ints and the visits of a pet are stored
+ * contiguously, in their original order, so that both building the index and merging it into owners
+ * are linear in the number of pets and visits.
+ */
+public final class VisitsIndex {
+
+    private final int[] petIds;
+
+    // 0 marks an empty slot: a used slot always holds at least one visit
+    private final int[] counts;
+
+    private final int[] starts;
+
+    private final VisitDetails[] visits;
+
+    private final int mask;
+
+    private VisitsIndex(int[] petIds, int[] counts, int[] starts, VisitDetails[] visits) {
+        this.petIds = petIds;
+        this.counts = counts;
+        this.starts = starts;
+        this.visits = visits;
+        this.mask = petIds.length - 1;
+    }
+
+    public static VisitsIndex of(Collection<VisitDetails> visits) {
+        int capacity = Integer.highestOneBit(Math.max(2, visits.size()) * 2 - 1) << 1;
+        int mask = capacity - 1;
+        int[] petIds = new int[capacity];
+        int[] counts = new int[capacity];
+        int[] slotOfVisit = new int[visits.size()];
+
+        int i = 0;
+        for (VisitDetails visit : visits) {
+            Integer petId = visit.petId();
+            if (petId == null) {
+                slotOfVisit[i++] = -1;
+                continue;
+            }
+            int slot = slotOf(petIds, counts, mask, petId);
+            petIds[slot] = petId;
+            counts[slot]++;
+            slotOfVisit[i++] = slot;
+        }
+
+        int[] starts = new int[capacity];
+        int offset = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            starts[slot] = offset;
+            offset += counts[slot];
+        }
+
+        VisitDetails[] grouped = new VisitDetails[offset];
+        int[] cursors = starts.clone();
+        i = 0;
+        for (VisitDetails visit : visits) {
+            int slot = slotOfVisit[i++];
+            if (slot >= 0) {
+                grouped[cursors[slot]++] = visit;
+            }
+        }
+        return new VisitsIndex(petIds, counts, starts, grouped);
+    }
+
+    /**
+     * @return the visits of the given pet, in the order they were received
+     */
+    public List<VisitDetails> visitsOf(int petId) {
+        int slot = slotOf(petIds, counts, mask, petId);
+        int count = counts[slot];
+        if (count == 0) {
+            return List.of();
+        }
+        return Collections.unmodifiableList(Arrays.asList(visits).subList(starts[slot], starts[slot] + count));
+    }
+
+    /**
+     * @return a copy of the given owner whose pets also hold their indexed visits
+     */
+    public OwnerDetails addTo(OwnerDetails owner) {
+        List<PetDetails> pets = new ArrayList<>(owner.pets().size());
+        for (PetDetails pet : owner.pets()) {
+            List<VisitDetails> petVisits = visitsOf(pet.id());
+            if (petVisits.isEmpty()) {
+                pets.add(pet);
+            } else {
+                List<VisitDetails> merged = new ArrayList<>(pet.visits().size() + petVisits.size());
+                merged.addAll(pet.visits());
+                merged.addAll(petVisits);
+                pets.add(pet.withVisits(merged));
+            }
+        }
+        return owner.withPets(pets);
+    }
+
+    private static int slotOf(int[] petIds, int[] counts, int mask, int petId) {
+        int hash = petId * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (counts[slot] != 0 && petIds[slot] != petId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -15,10 +15,15 @@
  */
 package org.springframework.samples.petclinic.api.application;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.samples.petclinic.api.dto.Visits;
+import org.springframework.samples.petclinic.api.system.HedgingProperties;
+import org.springframework.samples.petclinic.api.system.VisitsBatchProperties;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 
@@ -33,18 +38,38 @@ public class VisitsServiceClient {
     // Could be changed for testing purpose
     private String hostname = "http://visits-service/";
 
-    private final WebClient.Builder webClientBuilder;
+    private final WebClient webClient;
 
-    public VisitsServiceClient(WebClient.Builder webClientBuilder) {
-        this.webClientBuilder = webClientBuilder;
+    private final RequestCoalescer<List<Integer>, Visits> visitsRequests;
+
+    private final VisitsBatchLoader visitsBatchLoader;
+
+    private final RequestHedger visitsHedger;
+
+    public VisitsServiceClient(@Qualifier("visitsServiceWebClient") WebClient webClient, MeterRegistry meterRegistry,
+                               VisitsBatchProperties batchProperties, HedgingProperties hedgingProperties) {
+        this.webClient = webClient;
+        this.visitsRequests = new RequestCoalescer<>("visits-service.pets.visits", meterRegistry);
+        this.visitsHedger = new RequestHedger("visits-service.pets.visits", hedgingProperties, meterRegistry);
+        this.visitsBatchLoader = batchProperties.enabled()
+            ? new VisitsBatchLoader(this::fetchVisitsForPets, batchProperties.window(), batchProperties.maxIds(),
+                Schedulers.parallel(), meterRegistry)
+            : null;
     }
 
     public Mono<Visits> getVisitsForPets(final List<Integer> petIds) {
-        return webClientBuilder.build()
+        return visitsRequests.execute(List.copyOf(petIds), () -> visitsBatchLoader != null
+            ? visitsBatchLoader.load(petIds)
+            : fetchVisitsForPets(petIds));
+    }
+
+    private Mono<Visits> fetchVisitsForPets(final List<Integer> petIds) {
+        return visitsHedger.execute(attributes -> webClient
             .get()
             .uri(hostname + "pets/visits?petId={petId}", joinIds(petIds))
+            .attributes(attributes)
             .retrieve()
-            .bodyToMono(Visits.class);
+            .bodyToMono(Visits.class));
     }
 
     private String joinIds(List<Integer> petIds) {
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.samples.petclinic.api.dto.VisitDetails;
+import org.springframework.samples.petclinic.api.dto.Visits;
+import org.springframework.samples.petclinic.api.system.VisitsSnapshotsProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Last-known-good visits of each pet, kept off-heap so that the store does not grow the heap.
+ * <p>
+ * Visits are appended to a direct buffer used as a ring: once it is full, the oldest records are overwritten.
+ * Only an index from pet id to record position lives on the heap, in primitive arrays. Each record holds the
+ * visits of one pet, in a compact binary form, and the time they were read from visits-service, so that the
+ * visits of any set of pets can be served back with their staleness.
+ * <p>
+ * Fallbacks served from the store and those finding nothing are counted in {@code gateway.visits.snapshots.fallbacks}
+ * tagged {@code result=hit|miss}.
+ */
+@Component
+public class VisitsSnapshotStore {
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES;
+
+    private static final int NULL = Integer.MIN_VALUE;
+
+    private final boolean enabled;
+
+    private final ByteBuffer buffer;
+
+    private final int capacity;
+
+    private final Clock clock;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    /**
+     * Absolute position of the next record; records before {@code writePosition - capacity} were overwritten.
+     */
+    private long writePosition;
+
+    private int[] indexKeys = new int[1024];
+
+    private long[] indexPositions = newPositions(1024);
+
+    private int indexSize;
+
+    @Autowired
+    public VisitsSnapshotStore(VisitsSnapshotsProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Clock.systemUTC());
+    }
+
+    VisitsSnapshotStore(VisitsSnapshotsProperties properties, MeterRegistry meterRegistry, Clock clock) {
+        this.enabled = properties.enabled();
+        this.capacity = enabled ? (int) Math.min(properties.capacity().toBytes(), Integer.MAX_VALUE) : 0;
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+        this.clock = clock;
+        this.hits = Counter.builder("gateway.visits.snapshots.fallbacks").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("gateway.visits.snapshots.fallbacks").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("gateway.visits.snapshots.pets", this, VisitsSnapshotStore::size)
+            .description("Pets whose last-known-good visits are stored")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Records the visits just read for {@code petIds}, including the pets that have none.
+     */
+    public void put(Collection<Integer> petIds, Visits visits) {
+        if (!enabled) {
+            return;
+        }
+        VisitsIndex index = VisitsIndex.of(visits.items());
+        long now = clock.millis();
+        synchronized (this) {
+            for (Integer petId : petIds) {
+                write(petId, now, encode(index.visitsOf(petId)));
+            }
+        }
+    }
+
+    /**
+     * @return the last-known-good visits of the pets found in the store, as old as the oldest of them
+     */
+    public Optional<VisitsSnapshot> get(Collection<Integer> petIds) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        List<VisitDetails> visits = new ArrayList<>();
+        long oldest = Long.MAX_VALUE;
+        synchronized (this) {
+            for (Integer petId : petIds) {
+                long position = find(petId);
+                if (position < 0) {
+                    continue;
+                }
+                int offset = (int) (position % capacity);
+                oldest = Math.min(oldest, buffer.getLong(offset + Integer.BYTES * 2));
+                decode(offset + HEADER_BYTES, visits);
+            }
+        }
+        if (oldest == Long.MAX_VALUE) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(new VisitsSnapshot(new Visits(visits), Instant.ofEpochMilli(oldest)));
+    }
+
+    public record VisitsSnapshot(Visits visits, Instant updatedAt) {
+    }
+
+    private void write(int petId, long timestamp, byte[] payload) {
+        int length = HEADER_BYTES + payload.length;
+        if (length > capacity / 4) {
+            // would evict too many other pets
+            return;
+        }
+        int offset = (int) (writePosition % capacity);
+        if (offset + length > capacity) {
+            writePosition += capacity - offset;
+            offset = 0;
+        }
+        buffer.putInt(offset, petId);
+        buffer.putInt(offset + Integer.BYTES, payload.length);
+        buffer.putLong(offset + Integer.BYTES * 2, timestamp);
+        buffer.put(offset + HEADER_BYTES, payload);
+        index(petId, writePosition);
+        writePosition += length;
+    }
+
+    /**
+     * @return the absolute position of the pet's record, or -1 if it is unknown or was overwritten
+     */
+    private long find(int petId) {
+        int mask = indexKeys.length - 1;
+        for (int slot = hash(petId) & mask; indexPositions[slot] >= 0; slot = (slot + 1) & mask) {
+            if (indexKeys[slot] == petId) {
+                long position = indexPositions[slot];
+                boolean live = position >= writePosition - capacity
+                    && buffer.getInt((int) (position % capacity)) == petId;
+                return live ? position : -1;
+            }
+        }
+        return -1;
+    }
+
+    private void index(int petId, long position) {
+        if (indexSize + 1 > indexKeys.length * 3 / 4) {
+            rehash();
+        }
+        int mask = indexKeys.length - 1;
+        int slot = hash(petId) & mask;
+        while (indexPositions[slot] >= 0 && indexKeys[slot] != petId) {
+            slot = (slot + 1) & mask;
+        }
+        if (indexPositions[slot] < 0) {
+            indexSize++;
+        }
+        indexKeys[slot] = petId;
+        indexPositions[slot] = position;
+    }
+
+    /**
+     * Drops the entries of overwritten records, growing the index only if it is still crowded.
+     */
+    private void rehash() {
+        int[] keys = indexKeys;
+        long[] positions = indexPositions;
+        int live = 0;
+        for (long position : positions) {
+            if (position >= 0 && position >= writePosition - capacity) {
+                live++;
+            }
+        }
+        int length = keys.length;
+        while (live + 1 > length / 2) {
+            length *= 2;
+        }
+        indexKeys = new int[length];
+        indexPositions = newPositions(length);
+        indexSize = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (positions[i] >= 0 && positions[i] >= writePosition - capacity) {
+                index(keys[i], positions[i]);
+            }
+        }
+    }
+
+    synchronized int size() {
+        int size = 0;
+        for (long position : indexPositions) {
+            if (position >= 0 && position >= writePosition - capacity) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private static long[] newPositions(int length) {
+        long[] positions = new long[length];
+        Arrays.fill(positions, -1);
+        return positions;
+    }
+
+    private static int hash(int petId) {
+        int h = petId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static byte[] encode(List<VisitDetails> visits) {
+        List<byte[]> strings = new ArrayList<>(visits.size() * 2);
+        int length = Integer.BYTES;
+        for (VisitDetails visit : visits) {
+            byte[] date = bytes(visit.date());
+            byte[] description = bytes(visit.description());
+            strings.add(date);
+            strings.add(description);
+            length += Integer.BYTES * 4 + (date != null ? date.length : 0) + (description != null ? description.length : 0);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        payload.putInt(visits.size());
+        for (int i = 0; i < visits.size(); i++) {
+            VisitDetails visit = visits.get(i);
+            payload.putInt(visit.id() != null ? visit.id() : NULL);
+            payload.putInt(visit.petId() != null ? visit.petId() : NULL);
+            putString(payload, strings.get(i * 2));
+            putString(payload, strings.get(i * 2 + 1));
+        }
+        return payload.array();
+    }
+
+    private void decode(int offset, List<VisitDetails> visits) {
+        ByteBuffer payload = buffer.duplicate().position(offset);
+        int count = payload.getInt();
+        for (int i = 0; i < count; i++) {
+            int id = payload.getInt();
+            int petId = payload.getInt();
+            String date = getString(payload);
+            String description = getString(payload);
+            visits.add(new VisitDetails(id != NULL ? id : null, petId != NULL ? petId : null, date, description));
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void putString(ByteBuffer payload, byte[] value) {
+        if (value == null) {
+            payload.putInt(-1);
+            return;
+        }
+        payload.putInt(value.length);
+        payload.put(value);
+    }
+
+    private static String getString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        payload.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits the number of concurrent requests per route with a {@link GradientLimiter}, so that a slow downstream
+ * service sheds load with an immediate {@code 503 Service Unavailable} and a {@code Retry-After} header instead of
+ * queueing requests until they time out.
+ * <p>
+ * Exposes {@code gateway.concurrency.limit} and {@code gateway.concurrency.in-flight} gauges and a
+ * {@code gateway.concurrency.rejected} counter, all tagged with the route id.
+ */
+@Component
+public class AdaptiveConcurrencyLimitGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<AdaptiveConcurrencyLimitGatewayFilterFactory.Config> {
+
+    private static final String UNKNOWN_ROUTE = "unknown";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Kept across route refreshes, so that a route does not start over from its initial limit.
+     */
+    private final Map<String, RouteLimiter> limiters = new ConcurrentHashMap<>();
+
+    AdaptiveConcurrencyLimitGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("initialLimit", "minLimit", "maxLimit");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String retryAfter = Long.toString(Math.max(1, config.getRetryAfter().toSeconds()));
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : UNKNOWN_ROUTE;
+            RouteLimiter routeLimiter = limiters.computeIfAbsent(routeId, id -> new RouteLimiter(id, config));
+            GradientLimiter limiter = routeLimiter.limiter;
+            if (!limiter.tryAcquire()) {
+                routeLimiter.rejected.increment();
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+                return response.setComplete();
+            }
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        limiter.release();
+                        return;
+                    }
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    boolean dropped = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+                    limiter.release(System.nanoTime() - start, dropped);
+                });
+        };
+    }
+
+    private final class RouteLimiter {
+
+        private final GradientLimiter limiter;
+
+        private final Counter rejected;
+
+        private RouteLimiter(String routeId, Config config) {
+            this.limiter = new GradientLimiter(config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(),
+                config.getTolerance());
+            Gauge.builder("gateway.concurrency.limit", limiter, GradientLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("route", routeId)
+                .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.in-flight", limiter, GradientLimiter::getInFlight)
+                .description("Requests currently in flight")
+                .tag("route", routeId)
+                .register(meterRegistry);
+            this.rejected = Counter.builder("gateway.concurrency.rejected")
+                .description("Requests rejected because the concurrency limit was reached")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        }
+    }
+
+    public static class Config {
+
+        private int initialLimit = 20;
+
+        private int minLimit = 5;
+
+        private int maxLimit = 200;
+
+        /**
+         * How much the latency may exceed its long-term average before the limit shrinks.
+         */
+        private double tolerance = 1.5;
+
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+}
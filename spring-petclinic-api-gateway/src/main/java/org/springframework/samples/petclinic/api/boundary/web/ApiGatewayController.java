@@ -17,18 +17,33 @@ package org.springframework.samples.petclinic.api.boundary.web;
 
 import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreaker;
 import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.samples.petclinic.api.application.CustomersServiceClient;
+import org.springframework.samples.petclinic.api.application.OwnerDetailsCache;
+import org.springframework.samples.petclinic.api.application.VisitsIndex;
 import org.springframework.samples.petclinic.api.application.VisitsServiceClient;
+import org.springframework.samples.petclinic.api.application.VisitsSnapshotStore;
+import org.springframework.samples.petclinic.api.application.VisitsSnapshotStore.VisitsSnapshot;
+import org.springframework.samples.petclinic.api.dto.FieldSelection;
 import org.springframework.samples.petclinic.api.dto.OwnerDetails;
 import org.springframework.samples.petclinic.api.dto.Visits;
+import org.springframework.samples.petclinic.api.system.OwnersBatchProperties;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
 
 /**
  * @author Maciej Szarlinski
@@ -37,47 +52,166 @@ import java.util.function.Function;
 @RequestMapping("/api/gateway")
 public class ApiGatewayController {
 
+    /**
+     * Age in seconds of the visits served from {@link VisitsSnapshotStore} while visits-service is unavailable.
+     */
+    static final String VISITS_STALENESS_HEADER = "X-Visits-Staleness";
+
     private final CustomersServiceClient customersServiceClient;
 
     private final VisitsServiceClient visitsServiceClient;
 
     private final ReactiveCircuitBreakerFactory cbFactory;
 
+    private final OwnersBatchProperties batchProperties;
+
+    private final OwnerDetailsCache ownerDetailsCache;
+
+    private final VisitsSnapshotStore visitsSnapshots;
+
     public ApiGatewayController(CustomersServiceClient customersServiceClient,
                                 VisitsServiceClient visitsServiceClient,
-                                ReactiveCircuitBreakerFactory cbFactory) {
+                                ReactiveCircuitBreakerFactory cbFactory,
+                                OwnersBatchProperties batchProperties,
+                                OwnerDetailsCache ownerDetailsCache,
+                                VisitsSnapshotStore visitsSnapshots) {
         this.customersServiceClient = customersServiceClient;
         this.visitsServiceClient = visitsServiceClient;
         this.cbFactory = cbFactory;
+        this.batchProperties = batchProperties;
+        this.ownerDetailsCache = ownerDetailsCache;
+        this.visitsSnapshots = visitsSnapshots;
     }
 
+    /**
+     * Read an owner with the visits of their pets. A {@code fields} parameter restricts the response to the given
+     * fields, see {@link FieldSelection}; visits are not loaded at all when none of their fields is selected.
+     */
     @GetMapping(value = "owners/{ownerId}")
-    public Mono<OwnerDetails> getOwnerDetails(final @PathVariable int ownerId) {
+    public Mono<MappingJacksonValue> getOwnerDetails(final @PathVariable int ownerId,
+                                                     final @RequestParam(required = false) String fields,
+                                                     ServerHttpResponse response) {
+        FieldSelection selection = FieldSelection.parse(fields);
+        return getOwnerDetails(ownerId, selection.includes("pets", "visits"), response)
+            .map(owner -> project(owner, selection));
+    }
+
+    private Mono<OwnerDetails> getOwnerDetails(int ownerId, boolean withVisits, ServerHttpResponse response) {
+        OwnerDetails cached = ownerDetailsCache.get(ownerId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        if (!withVisits) {
+            return customersServiceClient.getOwner(ownerId);
+        }
+        long generation = ownerDetailsCache.generation(ownerId);
         return customersServiceClient.getOwner(ownerId)
             .flatMap(owner ->
-                visitsServiceClient.getVisitsForPets(owner.getPetIds())
+                getVisitsForPets(owner.getPetIds())
+                    .map(visits -> VisitsIndex.of(visits.items()).addTo(owner))
+                    // only complete owner details are cached, not the ones degraded by the fallback,
+                    // nor the ones read before a write to the owner completed
+                    .doOnNext(details -> ownerDetailsCache.put(details, generation))
                     .transform(it -> {
                         ReactiveCircuitBreaker cb = cbFactory.create("getOwnerDetails");
-                        return cb.run(it, throwable -> emptyVisitsForPets());
+                        return cb.run(it, throwable -> lastKnownVisits(owner.getPetIds(), response)
+                            .map(visits -> VisitsIndex.of(visits.items()).addTo(owner)));
                     })
-                    .map(addVisitsToOwner(owner))
             );
 
     }
 
-    private Function<Visits, OwnerDetails> addVisitsToOwner(OwnerDetails owner) {
-        return visits -> {
-            owner.pets()
-                .forEach(pet -> pet.visits()
-                    .addAll(visits.items().stream()
-                        .filter(v -> v.petId() == pet.id())
-                        .toList())
-                );
-            return owner;
-        };
+    /**
+     * Read several owners at once. Owners are fetched concurrently, then the visits of all their pets
+     * are loaded with as few visits-service calls as possible and merged back into each owner.
+     * Unknown owner ids are skipped. Like for a single owner, a {@code fields} parameter restricts the response.
+     */
+    @GetMapping(value = "owners", params = "ids")
+    public Mono<MappingJacksonValue> getOwnersDetails(final @RequestParam("ids") List<Integer> ownerIds,
+                                                      final @RequestParam(required = false) String fields,
+                                                      ServerHttpResponse response) {
+        List<Integer> distinctIds = ownerIds.stream().distinct().toList();
+        if (distinctIds.size() > batchProperties.maxOwners()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "At most " + batchProperties.maxOwners() + " owners can be requested at once"));
+        }
+        FieldSelection selection = FieldSelection.parse(fields);
+        Mono<List<OwnerDetails>> owners = Flux.fromIterable(distinctIds)
+            .flatMapSequential(this::getOwnerIfExists, batchProperties.maxConcurrency())
+            .collectList();
+        if (selection.includes("pets", "visits")) {
+            owners = owners.flatMap(withoutVisits -> getVisitsByPetId(withoutVisits, response)
+                .map(visitsByPetId -> addVisitsToOwners(withoutVisits, visitsByPetId)));
+        }
+        return owners.map(list -> project(list, selection));
+    }
+
+    /**
+     * Responses are written through a {@link MappingJacksonValue} so that only the selected fields are serialized.
+     */
+    private static MappingJacksonValue project(Object value, FieldSelection selection) {
+        MappingJacksonValue projection = new MappingJacksonValue(value);
+        projection.setFilters(selection.filters());
+        return projection;
+    }
+
+    private Mono<OwnerDetails> getOwnerIfExists(int ownerId) {
+        return customersServiceClient.getOwner(ownerId)
+            .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty());
+    }
+
+    private Mono<VisitsIndex> getVisitsByPetId(List<OwnerDetails> owners, ServerHttpResponse response) {
+        List<Integer> petIds = owners.stream()
+            .flatMap(owner -> owner.getPetIds().stream())
+            .distinct()
+            .toList();
+        ReactiveCircuitBreaker cb = cbFactory.create("getOwnersDetails");
+        return Flux.fromIterable(chunk(petIds, batchProperties.visitsChunkSize()))
+            .flatMap(chunk -> cb.run(getVisitsForPets(chunk), throwable -> lastKnownVisits(chunk, response)),
+                batchProperties.maxConcurrency())
+            .flatMapIterable(Visits::items)
+            .collectList()
+            .map(VisitsIndex::of);
+    }
+
+    private List<OwnerDetails> addVisitsToOwners(List<OwnerDetails> owners, VisitsIndex visitsByPetId) {
+        return owners.stream()
+            .map(visitsByPetId::addTo)
+            .toList();
+    }
+
+    private static <T> List<List<T>> chunk(List<T> items, int chunkSize) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += chunkSize) {
+            chunks.add(items.subList(i, Math.min(i + chunkSize, items.size())));
+        }
+        return chunks;
+    }
+
+    private Mono<Visits> getVisitsForPets(List<Integer> petIds) {
+        return visitsServiceClient.getVisitsForPets(petIds)
+            .doOnNext(visits -> visitsSnapshots.put(petIds, visits));
+    }
+
+    /**
+     * Circuit breaker fallback: the last visits successfully read for these pets, if any, rather than none.
+     */
+    private Mono<Visits> lastKnownVisits(List<Integer> petIds, ServerHttpResponse response) {
+        return Mono.just(visitsSnapshots.get(petIds)
+            .map(snapshot -> {
+                markStale(response, snapshot);
+                return snapshot.visits();
+            })
+            .orElseGet(() -> new Visits(List.of())));
     }
 
-    private Mono<Visits> emptyVisitsForPets() {
-        return Mono.just(new Visits(List.of()));
+    private static void markStale(ServerHttpResponse response, VisitsSnapshot snapshot) {
+        long age = Math.max(0, Duration.between(snapshot.updatedAt(), Instant.now()).toSeconds());
+        synchronized (response) {
+            String previous = response.getHeaders().getFirst(VISITS_STALENESS_HEADER);
+            if (previous == null || Long.parseLong(previous) < age) {
+                response.getHeaders().set(VISITS_STALENESS_HEADER, Long.toString(age));
+            }
+        }
     }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.samples.petclinic.api.dto.BatchRequest;
+import org.springframework.samples.petclinic.api.dto.BatchResponse;
+import org.springframework.samples.petclinic.api.system.RequestBatchProperties;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs several requests to the service routes in a single call, so that a screen of the UI needs one round trip
+ * rather than one per resource.
+ * <p>
+ * Each request is sent back to the gateway itself, so it goes through the same route filters and circuit breakers
+ * as if it had been sent on its own, with the {@link RequestBatchProperties#forwardedHeaders() credentials and trace
+ * context} of the batch and what is left of its {@link org.springframework.samples.petclinic.api.system.RequestDeadline
+ * deadline}. Responses are returned in the order of the requests, each with its own status:
+ * a failed request does not fail the batch.
+ */
+@RestController
+@RequestMapping("/api/gateway")
+public class BatchController {
+
+    private final WebClient loopbackWebClient;
+
+    private final RequestBatchProperties properties;
+
+    public BatchController(@Qualifier("gatewayLoopbackWebClient") WebClient loopbackWebClient,
+                           RequestBatchProperties properties) {
+        this.loopbackWebClient = loopbackWebClient;
+        this.properties = properties;
+    }
+
+    @PostMapping("batch")
+    public Flux<BatchResponse> batch(final @RequestBody List<BatchRequest> requests, ServerHttpRequest request) {
+        if (requests.isEmpty() || requests.size() > properties.maxRequests()) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "A batch holds between 1 and " + properties.maxRequests() + " requests"));
+        }
+        URI gateway = URI.create((request.getSslInfo() != null ? "https" : "http")
+            + "://localhost:" + request.getLocalAddress().getPort());
+        HttpHeaders forwardedHeaders = new HttpHeaders();
+        for (String name : properties.forwardedHeaders()) {
+            List<String> values = request.getHeaders().get(name);
+            if (values != null) {
+                forwardedHeaders.put(name, values);
+            }
+        }
+        return Flux.fromIterable(requests)
+            .flatMapSequential(subRequest -> execute(gateway, subRequest, forwardedHeaders), properties.maxConcurrency());
+    }
+
+    private Mono<BatchResponse> execute(URI gateway, BatchRequest request, HttpHeaders forwardedHeaders) {
+        URI path;
+        HttpMethod method;
+        try {
+            path = URI.create(request.path());
+            method = request.method() == null ? HttpMethod.GET : HttpMethod.valueOf(request.method().toUpperCase(Locale.ROOT));
+        } catch (RuntimeException e) {
+            return Mono.just(BatchResponse.error(request.id(), HttpStatus.BAD_REQUEST.value(), "Invalid request"));
+        }
+        if (!isAllowed(path)) {
+            return Mono.just(BatchResponse.error(request.id(), HttpStatus.BAD_REQUEST.value(),
+                "Only paths starting with " + properties.allowedPaths() + " can be batched"));
+        }
+        WebClient.RequestBodySpec spec = loopbackWebClient.method(method)
+            .uri(gateway.resolve(path))
+            .headers(headers -> headers.addAll(forwardedHeaders));
+        if (request.body() != null) {
+            spec.contentType(MediaType.APPLICATION_JSON).bodyValue(request.body());
+        }
+        return spec.exchangeToMono(response -> readBody(response)
+                .map(body -> new BatchResponse(request.id(), response.statusCode().value(), body))
+                .defaultIfEmpty(new BatchResponse(request.id(), response.statusCode().value(), null)))
+            .onErrorResume(e -> Mono.just(BatchResponse.error(request.id(), HttpStatus.BAD_GATEWAY.value(),
+                "Request failed: " + e.getMessage())));
+    }
+
+    /**
+     * Only relative paths of the allowed routes, without {@code ..} segments that would escape them.
+     */
+    private boolean isAllowed(URI path) {
+        if (path.isAbsolute() || path.getRawAuthority() != null || path.getRawPath() == null
+            || !path.normalize().equals(path)) {
+            return false;
+        }
+        return properties.allowedPaths().stream().anyMatch(path.getRawPath()::startsWith);
+    }
+
+    private static Mono<JsonNode> readBody(ClientResponse response) {
+        boolean json = response.headers().contentType()
+            .map(type -> MediaType.APPLICATION_JSON.isCompatibleWith(type) || "json".equals(type.getSubtypeSuffix()))
+            .orElse(false);
+        if (json) {
+            return response.bodyToMono(JsonNode.class);
+        }
+        return response.bodyToMono(String.class).map(TextNode::valueOf);
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.event.EnableBodyCachingEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.samples.petclinic.api.application.TokenBucketBudget;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Retries requests failing with one of the configured statuses, or with an I/O error or a timeout, as long as the
+ * retry budget of their route allows it.
+ * <p>
+ * Each route has a {@link TokenBucketBudget}: every successful request deposits {@code budgetRatio} of a token and
+ * every retry withdraws one, so retries stay around {@code budgetRatio} of the successful traffic. When the
+ * downstream service is overloaded, successes dry up and so do retries, instead of multiplying its load. Retries
+ * wait for an exponential backoff with full jitter, so that clients failing together do not retry together.
+ * <p>
+ * Exposes {@code gateway.retry.attempts} and {@code gateway.retry.budget.exhausted} counters and a
+ * {@code gateway.retry.budget.tokens} gauge, all tagged with the route id and the downstream service.
+ */
+@Component
+public class BudgetedRetryGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<BudgetedRetryGatewayFilterFactory.Config> {
+
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Kept across route refreshes, so that a route does not start over with a full budget.
+     */
+    private final Map<String, RouteBudget> budgets = new ConcurrentHashMap<>();
+
+    BudgetedRetryGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("retries", "statuses", "methods");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        if (config.getRouteId() != null && getPublisher() != null
+            && config.getMethods().stream().anyMatch(method -> method != HttpMethod.GET)) {
+            // request bodies have to be cached to be sent again
+            getPublisher().publishEvent(new EnableBodyCachingEvent(this, config.getRouteId()));
+        }
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : UNKNOWN;
+            RouteBudget budget = budgets.computeIfAbsent(routeId, id -> new RouteBudget(id, route, config));
+            return attempt(exchange, chain, config, budget, 0);
+        };
+    }
+
+    private Mono<Void> attempt(ServerWebExchange exchange, GatewayFilterChain chain, Config config,
+                               RouteBudget budget, int retry) {
+        return chain.filter(exchange)
+            .then(Mono.just(Optional.<Throwable>empty()))
+            .onErrorResume(error -> Mono.just(Optional.of(error)))
+            .flatMap(error -> {
+                Mono<Void> outcome = error.map(Mono::<Void>error).orElse(Mono.empty());
+                boolean failed = error.map(BudgetedRetryGatewayFilterFactory::isRetryable)
+                    .orElseGet(() -> config.getStatuses().contains(exchange.getResponse().getStatusCode()));
+                if (!failed) {
+                    if (error.isEmpty()) {
+                        budget.budget.deposit();
+                    }
+                    return outcome;
+                }
+                if (retry >= config.getRetries() || !config.getMethods().contains(exchange.getRequest().getMethod())) {
+                    return outcome;
+                }
+                if (!budget.budget.tryWithdraw()) {
+                    budget.exhausted.increment();
+                    return outcome;
+                }
+                budget.attempts.increment();
+                reset(exchange);
+                return Mono.delay(backoff(config, retry))
+                    .then(attempt(exchange, chain, config, budget, retry + 1));
+            });
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A random delay up to an exponential cap ("full jitter").
+     */
+    private static Duration backoff(Config config, int retry) {
+        long cap = Math.min(config.getMaxBackoff().toMillis(), config.getFirstBackoff().toMillis() << Math.min(retry, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(cap + 1));
+    }
+
+    private static void reset(ServerWebExchange exchange) {
+        Connection connection = exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null) {
+            connection.dispose();
+            exchange.getAttributes().remove(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        }
+        ServerWebExchangeUtils.reset(exchange);
+    }
+
+    private final class RouteBudget {
+
+        private final TokenBucketBudget budget;
+
+        private final Counter attempts;
+
+        private final Counter exhausted;
+
+        private RouteBudget(String routeId, Route route, Config config) {
+            String service = route != null && route.getUri().getHost() != null ? route.getUri().getHost() : UNKNOWN;
+            this.budget = new TokenBucketBudget(config.getBudgetRatio(), config.getBudgetBurst());
+            Gauge.builder("gateway.retry.budget.tokens", budget, TokenBucketBudget::getTokens)
+                .description("Retries currently allowed by the retry budget")
+                .tag("route", routeId)
+                .tag("service", service)
+                .register(meterRegistry);
+            this.attempts = Counter.builder("gateway.retry.attempts")
+                .description("Retries sent to the downstream service")
+                .tag("route", routeId)
+                .tag("service", service)
+                .register(meterRegistry);
+            this.exhausted = Counter.builder("gateway.retry.budget.exhausted")
+                .description("Retries not sent because the retry budget was exhausted")
+                .tag("route", routeId)
+                .tag("service", service)
+                .register(meterRegistry);
+        }
+    }
+
+    public static class Config implements HasRouteId {
+
+        private String routeId;
+
+        private int retries = 1;
+
+        private List<HttpStatus> statuses = List.of(HttpStatus.SERVICE_UNAVAILABLE);
+
+        private List<HttpMethod> methods = List.of(HttpMethod.GET);
+
+        /**
+         * Tokens deposited by each successful request: the share of the traffic that may be retried.
+         */
+        private double budgetRatio = 0.1;
+
+        /**
+         * Retries allowed in a row when the budget is full.
+         */
+        private int budgetBurst = 10;
+
+        private Duration firstBackoff = Duration.ofMillis(50);
+
+        private Duration maxBackoff = Duration.ofMillis(500);
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+
+        public int getRetries() {
+            return retries;
+        }
+
+        public void setRetries(int retries) {
+            this.retries = retries;
+        }
+
+        public List<HttpStatus> getStatuses() {
+            return statuses;
+        }
+
+        public void setStatuses(List<HttpStatus> statuses) {
+            this.statuses = statuses;
+        }
+
+        public List<HttpMethod> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<HttpMethod> methods) {
+            this.methods = methods;
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public int getBudgetBurst() {
+            return budgetBurst;
+        }
+
+        public void setBudgetBurst(int budgetBurst) {
+            this.budgetBurst = budgetBurst;
+        }
+
+        public Duration getFirstBackoff() {
+            return firstBackoff;
+        }
+
+        public void setFirstBackoff(Duration firstBackoff) {
+            this.firstBackoff = firstBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit adjusted from the measured latency of the requests it lets through.
+ * <p>
+ * The limit follows the gradient between a long-term average latency and the latest sample: it grows by about
+ * {@code sqrt(limit)} while latency stays within {@code tolerance} times the long-term average, and shrinks
+ * proportionally once it degrades, before the queues build up. A dropped request (server error or timeout)
+ * cuts the limit multiplicatively, as in AIMD. The limit only grows while at least half of it is in use, so
+ * that an idle route does not end up with a limit it never proved it could sustain.
+ */
+class GradientLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private static final double SMOOTHING = 0.2;
+
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    private double longRttNanos;
+
+    GradientLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * @return whether the request may proceed; {@link #release} must then be called once it completes
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a request without using it as a sample, e.g. when the client went away.
+     */
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        onSample(rttNanos, current, dropped);
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtCompletion, boolean dropped) {
+        if (dropped) {
+            limit = clamp(limit * BACKOFF_RATIO);
+            return;
+        }
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) * 2 / (LONG_WINDOW + 1);
+            // let the average catch up quickly once latency recovers from a slow period
+            if (longRttNanos / rttNanos > 2) {
+                longRttNanos *= 0.95;
+            }
+        }
+        if (inFlightAtCompletion < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / rttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = clamp(limit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.samples.petclinic.api.application.OwnerChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes an {@link OwnerChangedEvent} once a write routed to customers-service or visits-service
+ * ({@code OwnerResource}, {@code PetResource} or {@code VisitResource}) has completed.
+ */
+@Component
+class OwnerChangesFilter implements GlobalFilter, Ordered {
+
+    private static final List<PathPattern> OWNER_WRITES = List.of(
+        PathPatternParser.defaultInstance.parse("/api/customer/owners/{ownerId}"),
+        PathPatternParser.defaultInstance.parse("/api/customer/owners/{ownerId}/pets"),
+        PathPatternParser.defaultInstance.parse("/api/customer/owners/{ownerId}/pets/{petId}"),
+        PathPatternParser.defaultInstance.parse("/api/visit/owners/{ownerId}/pets/{petId}/visits"));
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    OwnerChangesFilter(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+            return chain.filter(exchange);
+        }
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        for (PathPattern pattern : OWNER_WRITES) {
+            PathPattern.PathMatchInfo match = pattern.matchAndExtract(path);
+            if (match != null) {
+                OwnerChangedEvent event = toEvent(match.getUriVariables());
+                return chain.filter(exchange)
+                    .doFinally(signal -> eventPublisher.publishEvent(event));
+            }
+        }
+        return chain.filter(exchange);
+    }
+
+    private static OwnerChangedEvent toEvent(Map<String, String> uriVariables) {
+        return new OwnerChangedEvent(parseId(uriVariables.get("ownerId")), parseId(uriVariables.get("petId")));
+    }
+
+    private static Integer parseId(String id) {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.samples.petclinic.api.system.DeadlineProperties;
+import org.springframework.samples.petclinic.api.system.RequestDeadline;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gives every request handled by the gateway, routed or not, a {@link RequestDeadline} in its Reactor context.
+ * Calls made on its behalf by the service clients carry the time left, see {@link RequestDeadline#propagation()},
+ * and so do the routed requests, see {@link RequestDeadlineRoutingFilter}.
+ */
+@Component
+class RequestDeadlineFilter implements WebFilter, Ordered {
+
+    private final DeadlineProperties properties;
+
+    RequestDeadlineFilter(DeadlineProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        RequestDeadline deadline = RequestDeadline.of(exchange.getRequest().getHeaders(), properties.timeout());
+        if (deadline.isExpired()) {
+            exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange).contextWrite(deadline::addTo);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
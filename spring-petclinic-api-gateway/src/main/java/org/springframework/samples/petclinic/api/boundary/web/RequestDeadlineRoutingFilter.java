@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.samples.petclinic.api.system.RequestDeadline;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Passes the time left before the {@link RequestDeadline} on to the service a request is routed to. It runs right
+ * before the request is sent, so that every retry gets the time actually left.
+ */
+@Component
+class RequestDeadlineRoutingFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return Mono.deferContextual(context -> RequestDeadline.current(context)
+            .map(deadline -> {
+                long remaining = deadline.remainingMillis();
+                if (remaining <= 0) {
+                    exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+                    return exchange.getResponse().setComplete();
+                }
+                return chain.filter(exchange.mutate()
+                    .request(request -> request.headers(headers -> headers.set(RequestDeadline.HEADER, Long.toString(remaining))))
+                    .build());
+            })
+            .orElseGet(() -> chain.filter(exchange)));
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyRoutingFilter.ORDER - 1;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * One of the requests of a batch.
+ *
+ * @param id     identifier echoed in the matching {@link BatchResponse}
+ * @param method HTTP method, {@code GET} when absent
+ * @param path   gateway path and query of the request, such as {@code /api/customer/owners/1}
+ * @param body   JSON body of the request, if any
+ */
+public record BatchRequest(
+    String id,
+    String method,
+    String path,
+    JsonNode body) {
+}
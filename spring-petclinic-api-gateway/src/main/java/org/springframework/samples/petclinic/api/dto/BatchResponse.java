@@ -0,0 +1,36 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * The outcome of one of the requests of a batch.
+ *
+ * @param id     identifier of the {@link BatchRequest}
+ * @param status HTTP status of the response
+ * @param body   body of the response: JSON as is, any other content as a string
+ */
+public record BatchResponse(
+    String id,
+    int status,
+    JsonNode body) {
+
+    public static BatchResponse error(String id, int status, String message) {
+        return new BatchResponse(id, status, TextNode.valueOf(message));
+    }
+}
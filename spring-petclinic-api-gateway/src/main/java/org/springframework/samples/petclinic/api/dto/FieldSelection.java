@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The fields of a response requested with a {@code fields} parameter, as comma-separated dotted paths such as
+ * {@code firstName,lastName,pets.name,pets.visits.date}.
+ * <p>
+ * Selecting a field selects everything below it, and array levels are transparent: {@code pets.name} selects the
+ * name of every pet. The selection is applied while serializing the DTOs annotated with {@link #FILTER_ID}, so
+ * unselected fields are never written.
+ */
+public final class FieldSelection {
+
+    public static final String FILTER_ID = "fieldSelection";
+
+    public static final FieldSelection ALL = new FieldSelection();
+
+    private final Map<String, FieldSelection> fields = new HashMap<>();
+
+    private FieldSelection() {
+    }
+
+    /**
+     * @param fields the value of a {@code fields} parameter, {@code null} or blank selecting all fields
+     */
+    public static FieldSelection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        FieldSelection root = new FieldSelection();
+        for (String path : fields.split(",")) {
+            if (!path.isBlank()) {
+                root.add(path.trim().split("\\."));
+            }
+        }
+        return root.fields.isEmpty() ? ALL : root;
+    }
+
+    private void add(String[] path) {
+        FieldSelection node = this;
+        for (int i = 0; i < path.length; i++) {
+            if (i == path.length - 1) {
+                node.fields.put(path[i], ALL);
+            } else {
+                node = node.fields.computeIfAbsent(path[i], name -> new FieldSelection());
+                if (node == ALL) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the field at the given path, or part of it, is selected
+     */
+    public boolean includes(String... path) {
+        FieldSelection node = this;
+        for (String name : path) {
+            if (node == ALL) {
+                return true;
+            }
+            node = node.fields.get(name);
+            if (node == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the filters writing only the selected fields
+     */
+    public FilterProvider filters() {
+        if (this == ALL) {
+            return defaultFilters();
+        }
+        return new SimpleFilterProvider().addFilter(FILTER_ID, new SelectedFieldsFilter());
+    }
+
+    /**
+     * @return the filters writing all fields, for an {@code ObjectMapper} serializing without a selection
+     */
+    public static FilterProvider defaultFilters() {
+        return new SimpleFilterProvider().addFilter(FILTER_ID, SimpleBeanPropertyFilter.serializeAll());
+    }
+
+    private final class SelectedFieldsFilter extends SimpleBeanPropertyFilter {
+
+        @Override
+        public void serializeAsField(Object pojo, JsonGenerator generator, SerializerProvider provider,
+                                     PropertyWriter writer) throws Exception {
+            FieldSelection selection = selectionOf(generator.getOutputContext());
+            if (selection == ALL || (selection != null && selection.fields.containsKey(writer.getName()))) {
+                writer.serializeAsField(pojo, generator, provider);
+            } else if (!generator.canOmitFields()) {
+                writer.serializeAsOmittedField(pojo, generator, provider);
+            }
+        }
+
+        /**
+         * Resolves the selection of the object being written from the names of its enclosing fields.
+         */
+        private FieldSelection selectionOf(JsonStreamContext object) {
+            Deque<String> path = new ArrayDeque<>();
+            for (JsonStreamContext context = object.getParent(); context != null; context = context.getParent()) {
+                if (context.inObject()) {
+                    path.push(context.getCurrentName());
+                }
+            }
+            FieldSelection node = FieldSelection.this;
+            for (String name : path) {
+                if (node == ALL) {
+                    return ALL;
+                }
+                node = node.fields.get(name);
+                if (node == null) {
+                    return null;
+                }
+            }
+            return node;
+        }
+    }
+}
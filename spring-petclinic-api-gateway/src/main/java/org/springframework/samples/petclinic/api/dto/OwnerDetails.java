@@ -15,6 +15,7 @@
  */
 package org.springframework.samples.petclinic.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.util.List;
@@ -22,6 +23,7 @@ import java.util.List;
 /**
  * @author Maciej Szarlinski
  */
+@JsonFilter(FieldSelection.FILTER_ID)
 public record OwnerDetails(
     int id,
     String firstName,
@@ -38,6 +40,9 @@ public record OwnerDetails(
             .toList();
     }
 
+    public OwnerDetails withPets(List<PetDetails> pets) {
+        return new OwnerDetails(id, firstName, lastName, address, city, telephone, pets);
+    }
 
     public static final class OwnerDetailsBuilder {
         private int id;
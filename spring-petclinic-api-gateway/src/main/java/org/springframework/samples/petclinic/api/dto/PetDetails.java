@@ -15,6 +15,7 @@
  */
 package org.springframework.samples.petclinic.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -22,6 +23,7 @@ import java.util.List;
 /**
  * @author Maciej Szarlinski
  */
+@JsonFilter(FieldSelection.FILTER_ID)
 public record PetDetails(
     int id,
     String name,
@@ -35,6 +37,10 @@ public record PetDetails(
         }
     }
 
+    public PetDetails withVisits(List<VisitDetails> visits) {
+        return new PetDetails(id, name, birthDate, type, visits);
+    }
+
     public static final class PetDetailsBuilder {
         private int id;
         private String name;
@@ -15,8 +15,11 @@
  */
 package org.springframework.samples.petclinic.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+
 /**
  * @author Maciej Szarlinski
  */
+@JsonFilter(FieldSelection.FILTER_ID)
 public record PetType(String name) {
 }
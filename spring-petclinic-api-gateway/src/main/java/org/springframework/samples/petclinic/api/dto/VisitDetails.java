@@ -15,9 +15,12 @@
  */
 package org.springframework.samples.petclinic.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+
 /**
  * @author Maciej Szarlinski
  */
+@JsonFilter(FieldSelection.FILTER_ID)
 public record VisitDetails (
     Integer id,
     Integer petId,
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+
+/**
+ * One long-lived, load-balanced {@link WebClient} per downstream service, each with its own connection pool.
+ * <p>
+ * Pool metrics are published to Micrometer under {@code reactor.netty.connection.provider.*}, tagged with the
+ * pool name: active, idle and pending connections for saturation and
+ * {@code reactor.netty.connection.provider.pending.connections.time} for the connection acquire latency.
+ * <p>
+ * The clients use the same codecs as the gateway endpoints and, unless disabled, ask services for Smile first: a
+ * service that does not support it answers in JSON. They pass the {@link RequestDeadline} of the request they are
+ * called for on to the services.
+ *
+ * @see ClientsProperties
+ */
+@Configuration
+class ClientsConfig {
+
+    @Bean(destroyMethod = "dispose")
+    ConnectionProvider customersServiceConnectionProvider(ClientsProperties properties) {
+        return connectionProvider("customers-service", properties.customers());
+    }
+
+    @Bean(destroyMethod = "dispose")
+    ConnectionProvider visitsServiceConnectionProvider(ClientsProperties properties) {
+        return connectionProvider("visits-service", properties.visits());
+    }
+
+    @Bean
+    WebClient customersServiceWebClient(WebClient.Builder loadBalancedWebClientBuilder,
+                                        @Qualifier("customersServiceConnectionProvider") ConnectionProvider connectionProvider,
+                                        ObjectProvider<CodecCustomizer> codecCustomizers,
+                                        ClientsProperties properties) {
+        return webClient(loadBalancedWebClientBuilder, connectionProvider, codecCustomizers, properties, properties.customers());
+    }
+
+    @Bean
+    WebClient visitsServiceWebClient(WebClient.Builder loadBalancedWebClientBuilder,
+                                     @Qualifier("visitsServiceConnectionProvider") ConnectionProvider connectionProvider,
+                                     ObjectProvider<CodecCustomizer> codecCustomizers,
+                                     ClientsProperties properties) {
+        return webClient(loadBalancedWebClientBuilder, connectionProvider, codecCustomizers, properties, properties.visits());
+    }
+
+    /**
+     * Calls the gateway itself, so that the requests of a batch go through the routes and their filters.
+     */
+    @Bean
+    WebClient gatewayLoopbackWebClient(ObjectProvider<CodecCustomizer> codecCustomizers) {
+        return WebClient.builder()
+            .codecs(configurer -> codecCustomizers.orderedStream().forEach(customizer -> customizer.customize(configurer)))
+            .defaultHeaders(headers -> headers.setAccept(List.of(MediaType.APPLICATION_JSON)))
+            .filter(RequestDeadline.propagation())
+            .build();
+    }
+
+    private static ConnectionProvider connectionProvider(String name, ClientsProperties.Pool pool) {
+        return ConnectionProvider.builder(name)
+            .maxConnections(pool.maxConnections())
+            .pendingAcquireMaxCount(pool.pendingAcquireMaxCount())
+            .pendingAcquireTimeout(pool.pendingAcquireTimeout())
+            .maxIdleTime(pool.maxIdleTime())
+            .maxLifeTime(pool.maxLifeTime())
+            .evictInBackground(pool.evictionInterval())
+            .metrics(true)
+            .build();
+    }
+
+    private static WebClient webClient(WebClient.Builder builder, ConnectionProvider connectionProvider,
+                                       ObjectProvider<CodecCustomizer> codecCustomizers,
+                                       ClientsProperties properties, ClientsProperties.Pool pool) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.SO_KEEPALIVE, pool.keepAlive())
+            .keepAlive(true);
+        List<MediaType> accept = properties.smile()
+            ? List.of(JacksonConfig.APPLICATION_SMILE, MediaType.APPLICATION_JSON)
+            : List.of(MediaType.APPLICATION_JSON);
+        // clone() keeps the load balancer filter registered on the shared builder
+        return builder.clone()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .codecs(configurer -> codecCustomizers.orderedStream().forEach(customizer -> customizer.customize(configurer)))
+            .defaultHeaders(headers -> headers.setAccept(accept))
+            .filter(RequestDeadline.propagation())
+            .build();
+    }
+}
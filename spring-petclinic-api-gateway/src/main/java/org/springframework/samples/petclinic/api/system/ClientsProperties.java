@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Connection pools of the HTTP clients used by the gateway to call downstream services.
+ *
+ * @param smile whether services are asked to answer in Smile, the binary JSON format, rather than JSON
+ */
+@ConfigurationProperties(prefix = "gateway.clients")
+public record ClientsProperties(
+    @DefaultValue Pool customers,
+    @DefaultValue Pool visits,
+    @DefaultValue("true") boolean smile
+) {
+
+    /**
+     * @param maxConnections          maximum number of open connections to the service
+     * @param pendingAcquireMaxCount  maximum number of requests waiting for a connection
+     * @param pendingAcquireTimeout   maximum time a request waits for a connection
+     * @param maxIdleTime             idle time after which a connection is closed
+     * @param maxLifeTime             age after which a connection is closed
+     * @param evictionInterval        interval of the background eviction of idle and expired connections
+     * @param keepAlive               whether TCP keep-alive probes are sent on idle connections
+     */
+    public record Pool(
+        @DefaultValue("100") int maxConnections,
+        @DefaultValue("500") int pendingAcquireMaxCount,
+        @DefaultValue("5s") Duration pendingAcquireTimeout,
+        @DefaultValue("30s") Duration maxIdleTime,
+        @DefaultValue("10m") Duration maxLifeTime,
+        @DefaultValue("30s") Duration evictionInterval,
+        @DefaultValue("true") boolean keepAlive
+    ) {
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Links the attempts of a hedged request, so that {@link PeakEwmaLoadBalancer} sends the hedge to another
+ * instance than the first attempt.
+ * <p>
+ * Carried as the {@link #ATTRIBUTE} attribute of each attempt's {@code WebClient} request.
+ */
+public class HedgedRequest {
+
+    public static final String ATTRIBUTE = HedgedRequest.class.getName();
+
+    private volatile String firstInstanceId;
+
+    /**
+     * @return the instance id the first attempt was sent to, if it went through the load balancer
+     */
+    String getFirstInstanceId() {
+        return firstInstanceId;
+    }
+
+    synchronized void recordChoice(ServiceInstance instance) {
+        if (firstInstanceId == null) {
+            firstInstanceId = InstanceStats.instanceKey(instance);
+        }
+    }
+}
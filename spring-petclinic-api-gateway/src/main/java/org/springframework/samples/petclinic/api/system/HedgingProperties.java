@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Hedging of the idempotent reads sent by {@code CustomersServiceClient} and {@code VisitsServiceClient}.
+ *
+ * @param enabled     whether a second attempt is sent when the first one is slow
+ * @param percentile  latency percentile of the recent attempts after which the second attempt is sent
+ * @param minDelay    lower bound of the hedging delay, also used until enough latencies were recorded
+ * @param budgetRatio hedges allowed per call, e.g. 0.1 for at most 10% extra load
+ * @param budgetBurst hedges that can be sent in a burst once the budget has filled up
+ */
+@ConfigurationProperties(prefix = "gateway.hedging")
+public record HedgingProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("0.95") double percentile,
+    @DefaultValue("20ms") Duration minDelay,
+    @DefaultValue("0.1") double budgetRatio,
+    @DefaultValue("10") int budgetBurst
+) {
+}
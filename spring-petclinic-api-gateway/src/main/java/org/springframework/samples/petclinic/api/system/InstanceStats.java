@@ -0,0 +1,187 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live load of a single service instance as seen by the gateway: outstanding requests and a peak-sensitive
+ * exponentially weighted moving average of its response times.
+ * <p>
+ * A response slower than the average replaces it at once, while faster responses only pull it down gradually,
+ * so an instance that starts pausing is avoided immediately and is tried again as its average decays.
+ * <p>
+ * It also tracks the consecutive failures of the instance and whether it is currently ejected from load balancing,
+ * see {@link OutlierDetector}.
+ */
+public class InstanceStats {
+
+    /**
+     * Cost of an instance that has requests in flight but has not answered any yet.
+     */
+    private static final double PENALTY = Long.MAX_VALUE >> 16;
+
+    private final String instanceId;
+
+    private final String host;
+
+    private final int port;
+
+    private final double decayNanos;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private double ewmaNanos;
+
+    private long stampNanos;
+
+    private int consecutiveFailures;
+
+    private int ejections;
+
+    private long ejectedUntilNanos;
+
+    InstanceStats(ServiceInstance instance, long decayNanos) {
+        this.instanceId = instanceKey(instance);
+        this.host = instance.getHost();
+        this.port = instance.getPort();
+        this.decayNanos = decayNanos;
+        this.stampNanos = System.nanoTime();
+    }
+
+    static String instanceKey(ServiceInstance instance) {
+        return instance.getInstanceId() != null ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+    }
+
+    void requestStarted() {
+        outstanding.incrementAndGet();
+    }
+
+    void requestCompleted(long rttNanos) {
+        outstanding.decrementAndGet();
+        observe(rttNanos, System.nanoTime());
+    }
+
+    /**
+     * Completes a request that produced no usable latency sample, e.g. because it was cancelled.
+     */
+    void requestDiscarded() {
+        outstanding.decrementAndGet();
+    }
+
+    synchronized void observe(long rttNanos, long nowNanos) {
+        double w = weight(nowNanos);
+        ewmaNanos = rttNanos > ewmaNanos ? rttNanos : ewmaNanos * w + rttNanos * (1 - w);
+        stampNanos = nowNanos;
+    }
+
+    /**
+     * Expected cost of sending one more request to this instance; lower is better.
+     */
+    public double cost() {
+        return cost(System.nanoTime());
+    }
+
+    synchronized double cost(long nowNanos) {
+        int inFlight = outstanding.get();
+        double latency = decayedEwma(nowNanos);
+        if (latency == 0 && inFlight != 0) {
+            return PENALTY + inFlight;
+        }
+        return latency * (inFlight + 1);
+    }
+
+    /**
+     * The average decays towards zero while no response is observed, so that idle instances get probed again.
+     */
+    private double decayedEwma(long nowNanos) {
+        return ewmaNanos * weight(nowNanos);
+    }
+
+    private double weight(long nowNanos) {
+        return Math.exp(-Math.max(nowNanos - stampNanos, 0) / decayNanos);
+    }
+
+    synchronized double latencyNanos(long nowNanos) {
+        return decayedEwma(nowNanos);
+    }
+
+    /**
+     * @return the number of consecutive failures, including this one
+     */
+    synchronized int recordFailure() {
+        return ++consecutiveFailures;
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Ejects the instance for {@code baseNanos} doubled by each previous ejection, up to {@code maxNanos}. Previous
+     * ejections are forgotten once the instance has behaved for {@code maxNanos} since the last one ended.
+     */
+    synchronized void eject(long nowNanos, long baseNanos, long maxNanos) {
+        if (ejections > 0 && nowNanos - ejectedUntilNanos > maxNanos) {
+            ejections = 0;
+        }
+        long ejectionNanos = Math.min(baseNanos << Math.min(ejections, 30), maxNanos);
+        if (ejectionNanos < 0) {
+            ejectionNanos = maxNanos;
+        }
+        ejections++;
+        ejectedUntilNanos = nowNanos + ejectionNanos;
+        consecutiveFailures = 0;
+    }
+
+    public boolean isEjected() {
+        return isEjected(System.nanoTime());
+    }
+
+    synchronized boolean isEjected(long nowNanos) {
+        return ejections > 0 && nowNanos - ejectedUntilNanos < 0;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public synchronized int getEjections() {
+        return ejections;
+    }
+
+    public synchronized double getLatencyMillis() {
+        return decayedEwma(System.nanoTime()) / 1_000_000;
+    }
+}
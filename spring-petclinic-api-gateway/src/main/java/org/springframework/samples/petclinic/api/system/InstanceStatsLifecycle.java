@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+
+/**
+ * Records the outstanding requests and response times of every load-balanced call into {@link LoadBalancerStats},
+ * and their failures into the {@link OutlierDetector}.
+ */
+class InstanceStatsLifecycle implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private final LoadBalancerStats loadBalancerStats;
+
+    private final OutlierDetector outlierDetector;
+
+    InstanceStatsLifecycle(LoadBalancerStats loadBalancerStats, OutlierDetector outlierDetector) {
+        this.loadBalancerStats = loadBalancerStats;
+        this.outlierDetector = outlierDetector;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+            && ResponseData.class.isAssignableFrom(responseClass)
+            && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        RequestDataContext context = request.getContext();
+        if (context != null && context.getRequestStartTime() == 0) {
+            context.setRequestStartTime(System.nanoTime());
+        }
+        loadBalancerStats.stats(lbResponse.getServer()).requestStarted();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        ServiceInstance instance = lbResponse.getServer();
+        InstanceStats stats = loadBalancerStats.find(instance);
+        // pruned while the request was in flight, the instance has left its service
+        if (stats == null) {
+            return;
+        }
+        RequestDataContext context = completionContext.getLoadBalancerRequest().getContext();
+        if (context == null || context.getRequestStartTime() == 0) {
+            stats.requestDiscarded();
+            return;
+        }
+        long rttNanos = System.nanoTime() - context.getRequestStartTime();
+        if (completionContext.status() == CompletionContext.Status.DISCARD) {
+            stats.requestDiscarded();
+            outlierDetector.requestDiscarded(instance, rttNanos);
+            return;
+        }
+        stats.requestCompleted(rttNanos);
+        outlierDetector.requestCompleted(instance, rttNanos, isError(completionContext));
+    }
+
+    private static boolean isError(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            return true;
+        }
+        ResponseData response = completionContext.getClientResponse();
+        return response != null && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exposes the per-instance scores used by {@link PeakEwmaLoadBalancer} at {@code /actuator/loadbalancer}.
+ */
+@Component
+@Endpoint(id = "loadbalancer")
+class LoadBalancerEndpoint {
+
+    private final LoadBalancerStats loadBalancerStats;
+
+    LoadBalancerEndpoint(LoadBalancerStats loadBalancerStats) {
+        this.loadBalancerStats = loadBalancerStats;
+    }
+
+    @ReadOperation
+    Map<String, List<InstanceScore>> services() {
+        Map<String, List<InstanceScore>> scores = new TreeMap<>();
+        loadBalancerStats.snapshot().forEach((serviceId, stats) ->
+            scores.put(serviceId, stats.stream().map(InstanceScore::of).toList()));
+        return scores;
+    }
+
+    @ReadOperation
+    List<InstanceScore> service(@Selector String serviceId) {
+        return loadBalancerStats.stats(serviceId).stream().map(InstanceScore::of).toList();
+    }
+
+    record InstanceScore(String instanceId, String host, int port, int outstanding, double latencyMillis, double cost,
+                         int consecutiveFailures, int ejections, boolean ejected) {
+
+        static InstanceScore of(InstanceStats stats) {
+            return new InstanceScore(stats.getInstanceId(), stats.getHost(), stats.getPort(), stats.getOutstanding(),
+                stats.getLatencyMillis(), stats.cost() / 1_000_000, stats.getConsecutiveFailures(), stats.getEjections(),
+                stats.isEjected());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * {@link InstanceStats} of every instance the gateway has sent requests to, grouped by service id.
+ * <p>
+ * Fed by {@link InstanceStatsLifecycle} for both the {@code lb://} routes and the {@code @LoadBalanced} clients,
+ * and read by {@link PeakEwmaLoadBalancer}, which also {@link #retain(String, List) prunes} the instances that have
+ * left the instance list of their service.
+ */
+@Component
+public class LoadBalancerStats {
+
+    private final ConcurrentMap<String, ConcurrentMap<String, InstanceStats>> statsByService = new ConcurrentHashMap<>();
+
+    private final long decayNanos;
+
+    public LoadBalancerStats(LoadBalancingProperties properties) {
+        this.decayNanos = properties.decayTime().toNanos();
+    }
+
+    public InstanceStats stats(ServiceInstance instance) {
+        return statsByService
+            .computeIfAbsent(instance.getServiceId().toLowerCase(), serviceId -> new ConcurrentHashMap<>())
+            .computeIfAbsent(InstanceStats.instanceKey(instance), key -> new InstanceStats(instance, decayNanos));
+    }
+
+    /**
+     * @return the stats of the instance, or {@code null} if it has been pruned or never seen
+     */
+    public InstanceStats find(ServiceInstance instance) {
+        Map<String, InstanceStats> stats = statsByService.get(instance.getServiceId().toLowerCase());
+        return stats != null ? stats.get(InstanceStats.instanceKey(instance)) : null;
+    }
+
+    /**
+     * Forgets the instances of a service that are not in {@code instances}, e.g. since they left Eureka, so that
+     * they no longer count against the ejected percentage of the service. An empty list, more likely a registry
+     * hiccup than a service without instances, is ignored.
+     */
+    public void retain(String serviceId, List<ServiceInstance> instances) {
+        Map<String, InstanceStats> stats = statsByService.get(serviceId.toLowerCase());
+        if (stats == null || instances.isEmpty()) {
+            return;
+        }
+        Set<String> keys = instances.stream().map(InstanceStats::instanceKey).collect(Collectors.toSet());
+        stats.keySet().retainAll(keys);
+    }
+
+    /**
+     * Instances of a service seen so far, cheapest first.
+     */
+    public List<InstanceStats> stats(String serviceId) {
+        Map<String, InstanceStats> stats = statsByService.getOrDefault(serviceId.toLowerCase(), new ConcurrentHashMap<>());
+        return stats.values().stream()
+            .sorted(Comparator.comparingDouble(InstanceStats::cost))
+            .toList();
+    }
+
+    public Map<String, List<InstanceStats>> snapshot() {
+        Map<String, List<InstanceStats>> snapshot = new TreeMap<>();
+        statsByService.keySet().forEach(serviceId -> snapshot.put(serviceId, stats(serviceId)));
+        return snapshot;
+    }
+}
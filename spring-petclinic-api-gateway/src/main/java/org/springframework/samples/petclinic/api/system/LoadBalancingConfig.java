@@ -0,0 +1,44 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the round-robin load balancer of every service with a {@link PeakEwmaLoadBalancer}, for both the
+ * {@code lb://} routes and the {@code @LoadBalanced} clients.
+ * <p>
+ * Instances that keep failing are ejected by an {@link OutlierDetector}. Per-instance scores are exposed by the
+ * {@code loadbalancer} actuator endpoint.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+class LoadBalancingConfig {
+
+    @Bean
+    OutlierDetector outlierDetector(LoadBalancerStats loadBalancerStats, LoadBalancingProperties properties,
+                                    MeterRegistry meterRegistry) {
+        return new OutlierDetector(loadBalancerStats, properties, meterRegistry);
+    }
+
+    @Bean
+    InstanceStatsLifecycle instanceStatsLifecycle(LoadBalancerStats loadBalancerStats, OutlierDetector outlierDetector) {
+        return new InstanceStatsLifecycle(loadBalancerStats, outlierDetector);
+    }
+}
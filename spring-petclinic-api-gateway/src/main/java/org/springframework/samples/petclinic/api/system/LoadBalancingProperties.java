@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Peak-EWMA load balancing of the {@code lb://} routes and the {@code @LoadBalanced} clients.
+ *
+ * @param decayTime        time constant of the latency moving average: a latency peak is mostly forgotten after it
+ * @param outlierDetection ejection of the instances that keep failing, see {@link OutlierDetector}
+ */
+@ConfigurationProperties(prefix = "gateway.load-balancer")
+public record LoadBalancingProperties(
+    @DefaultValue("10s") Duration decayTime,
+    @DefaultValue OutlierDetection outlierDetection
+) {
+
+    /**
+     * @param enabled              whether failing instances are ejected
+     * @param consecutiveFailures  consecutive failures after which an instance is ejected
+     * @param latencyFactor        a response this many times slower than the median latency of the other instances
+     *                             of the service counts as a failure
+     * @param minOutlierLatency    latency below which a response never counts as a failure for being slow
+     * @param baseEjectionTime     time of a first ejection, doubled by each following one
+     * @param maxEjectionTime      upper bound of the ejection time
+     * @param maxEjectionPercent   percentage of the instances of a service that can be ejected at the same time
+     */
+    public record OutlierDetection(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("5") int consecutiveFailures,
+        @DefaultValue("5") double latencyFactor,
+        @DefaultValue("500ms") Duration minOutlierLatency,
+        @DefaultValue("30s") Duration baseEjectionTime,
+        @DefaultValue("5m") Duration maxEjectionTime,
+        @DefaultValue("50") int maxEjectionPercent
+    ) {
+    }
+}
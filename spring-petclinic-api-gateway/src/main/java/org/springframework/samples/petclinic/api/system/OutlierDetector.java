@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.List;
+
+/**
+ * Passive outlier detection: ejects an instance from load balancing once it has failed a number of times in a row,
+ * rather than waiting for its Eureka lease to expire.
+ * <p>
+ * A request fails when it errs, gets a 5xx response or is much slower than the other instances of the service
+ * answer, which includes requests cancelled after having waited that long, e.g. by a time limiter. An instance is
+ * ejected for an exponentially growing time on each ejection, and never when that would eject more than the
+ * configured percentage of the instances of its service. Ejections are counted in
+ * {@code gateway.loadbalancer.ejections}.
+ *
+ * @see PeakEwmaLoadBalancer
+ */
+class OutlierDetector {
+
+    private final LoadBalancerStats loadBalancerStats;
+
+    private final LoadBalancingProperties.OutlierDetection properties;
+
+    private final MeterRegistry meterRegistry;
+
+    OutlierDetector(LoadBalancerStats loadBalancerStats, LoadBalancingProperties properties, MeterRegistry meterRegistry) {
+        this.loadBalancerStats = loadBalancerStats;
+        this.properties = properties.outlierDetection();
+        this.meterRegistry = meterRegistry;
+    }
+
+    void requestCompleted(ServiceInstance instance, long rttNanos, boolean error) {
+        if (!properties.enabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        InstanceStats stats = loadBalancerStats.stats(instance);
+        if (error || isSlow(instance, stats, rttNanos, now)) {
+            requestFailed(instance, stats, now);
+        } else {
+            stats.recordSuccess();
+        }
+    }
+
+    /**
+     * A cancelled request only counts as a failure when it had already been waiting for longer than a slow response.
+     */
+    void requestDiscarded(ServiceInstance instance, long elapsedNanos) {
+        if (!properties.enabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        InstanceStats stats = loadBalancerStats.stats(instance);
+        if (isSlow(instance, stats, elapsedNanos, now)) {
+            requestFailed(instance, stats, now);
+        }
+    }
+
+    private boolean isSlow(ServiceInstance instance, InstanceStats stats, long rttNanos, long now) {
+        if (rttNanos < properties.minOutlierLatency().toNanos()) {
+            return false;
+        }
+        double[] others = loadBalancerStats.stats(instance.getServiceId()).stream()
+            .filter(other -> other != stats && !other.isEjected(now))
+            .mapToDouble(other -> other.latencyNanos(now))
+            .filter(latency -> latency > 0)
+            .sorted()
+            .toArray();
+        // without a couple of other instances to compare with, the service may just be slow
+        if (others.length < 2) {
+            return false;
+        }
+        double median = others.length % 2 == 1
+            ? others[others.length / 2]
+            : (others[others.length / 2 - 1] + others[others.length / 2]) / 2;
+        return rttNanos > median * properties.latencyFactor();
+    }
+
+    private void requestFailed(ServiceInstance instance, InstanceStats stats, long now) {
+        if (stats.recordFailure() < properties.consecutiveFailures()) {
+            return;
+        }
+        String serviceId = instance.getServiceId().toLowerCase();
+        // serialized so that concurrent ejections cannot exceed the maximum ejected percentage
+        synchronized (this) {
+            if (stats.isEjected(now) || !canEject(serviceId, now)) {
+                return;
+            }
+            stats.eject(now, properties.baseEjectionTime().toNanos(), properties.maxEjectionTime().toNanos());
+        }
+        Counter.builder("gateway.loadbalancer.ejections")
+            .description("Instances ejected from load balancing by the outlier detection")
+            .tag("service", serviceId)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    private boolean canEject(String serviceId, long now) {
+        List<InstanceStats> instances = loadBalancerStats.stats(serviceId);
+        long ejected = instances.stream().filter(instance -> instance.isEjected(now)).count();
+        return (ejected + 1) * 100 <= (long) properties.maxEjectionPercent() * instances.size();
+    }
+}
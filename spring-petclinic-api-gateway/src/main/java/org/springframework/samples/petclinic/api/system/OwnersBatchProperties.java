@@ -0,0 +1,34 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Limits applied by the batch owner-details endpoint.
+ *
+ * @param maxOwners       maximum number of owner ids accepted by a single call
+ * @param maxConcurrency  maximum number of concurrent calls to customers-service and visits-service
+ * @param visitsChunkSize maximum number of pet ids sent in a single visits-service call
+ */
+@ConfigurationProperties(prefix = "gateway.owners-batch")
+public record OwnersBatchProperties(
+    @DefaultValue("200") int maxOwners,
+    @DefaultValue("8") int maxConcurrency,
+    @DefaultValue("100") int visitsChunkSize
+) {
+}
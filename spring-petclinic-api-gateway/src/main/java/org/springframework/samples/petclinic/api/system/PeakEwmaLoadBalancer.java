@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-two-choices load balancer: picks two instances at random and sends the request to the one with the
+ * lowest {@link InstanceStats#cost() peak-EWMA cost}, i.e. latency times outstanding requests.
+ * <p>
+ * Comparing two random instances rather than always taking the cheapest one avoids herding every gateway
+ * request onto the same instance between two latency samples. The hedge of a {@link HedgedRequest} is the
+ * exception: it goes to the cheapest instance other than the one the first attempt was sent to.
+ * <p>
+ * Instances ejected by the {@link OutlierDetector} are left out, unless all of them are: trying them then beats
+ * failing every request.
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    private final String serviceId;
+
+    private final LoadBalancerStats loadBalancerStats;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                String serviceId, LoadBalancerStats loadBalancerStats) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.loadBalancerStats = loadBalancerStats;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+            .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        HedgedRequest hedgedRequest = hedgedRequest(request);
+        return supplier.get(request).next()
+            .map(instances -> {
+                loadBalancerStats.retain(serviceId, instances);
+                Response<ServiceInstance> response = choose(instances, hedgedRequest);
+                if (supplier instanceof SelectedInstanceCallback callback && response.hasServer()) {
+                    callback.selectedServiceInstance(response.getServer());
+                }
+                return response;
+            });
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> candidates, HedgedRequest hedgedRequest) {
+        List<ServiceInstance> instances = withoutEjected(candidates);
+        if (hedgedRequest == null) {
+            return choose(instances);
+        }
+        String firstInstanceId = hedgedRequest.getFirstInstanceId();
+        if (firstInstanceId == null) {
+            Response<ServiceInstance> response = choose(instances);
+            if (response.hasServer()) {
+                hedgedRequest.recordChoice(response.getServer());
+            }
+            return response;
+        }
+        // a hedge: the cheapest instance other than the one still working on the first attempt
+        return instances.stream()
+            .filter(instance -> !firstInstanceId.equals(InstanceStats.instanceKey(instance)))
+            .min(Comparator.comparingDouble(instance -> loadBalancerStats.stats(instance).cost()))
+            .<Response<ServiceInstance>>map(DefaultResponse::new)
+            .orElseGet(() -> choose(instances));
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(instances.size());
+        int second = random.nextInt(instances.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        return new DefaultResponse(loadBalancerStats.stats(a).cost() <= loadBalancerStats.stats(b).cost() ? a : b);
+    }
+
+    private List<ServiceInstance> withoutEjected(List<ServiceInstance> instances) {
+        List<ServiceInstance> available = instances.stream()
+            .filter(instance -> !loadBalancerStats.stats(instance).isEjected())
+            .toList();
+        return available.isEmpty() ? instances : available;
+    }
+
+    private static HedgedRequest hedgedRequest(Request<?> request) {
+        if (request.getContext() instanceof RequestDataContext context && context.getClientRequest() != null
+            && context.getClientRequest().getAttributes() != null) {
+            return (HedgedRequest) context.getClientRequest().getAttributes().get(HedgedRequest.ATTRIBUTE);
+        }
+        return null;
+    }
+}
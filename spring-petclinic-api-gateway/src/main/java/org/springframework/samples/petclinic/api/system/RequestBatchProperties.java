@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Limits applied by the {@code /api/gateway/batch} endpoint.
+ *
+ * @param maxRequests      maximum number of sub-requests accepted by a single batch
+ * @param maxConcurrency   maximum number of sub-requests of a batch run concurrently
+ * @param allowedPaths     path prefixes of the routes sub-requests may target
+ * @param forwardedHeaders headers of the batch copied onto each of its sub-requests: credentials, locale and trace
+ *                         context; the deadline is passed on by the loopback client itself
+ */
+@ConfigurationProperties(prefix = "gateway.request-batch")
+public record RequestBatchProperties(
+    @DefaultValue("20") int maxRequests,
+    @DefaultValue("6") int maxConcurrency,
+    @DefaultValue({"/api/customer/", "/api/visit/", "/api/vet/"}) List<String> allowedPaths,
+    @DefaultValue({"Authorization", "Cookie", "Accept-Language", "traceparent", "tracestate", "b3", "X-B3-TraceId",
+        "X-B3-SpanId", "X-B3-ParentSpanId", "X-B3-Sampled"}) List<String> forwardedHeaders
+) {
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Point in time after which nobody waits for the response to a request anymore.
+ * <p>
+ * The deadline travels with the request in the Reactor context and is passed on to the services in the
+ * {@value #HEADER} header, as the time left in milliseconds rather than an instant so that clocks need not agree.
+ * The services reject requests that arrive too late and bound their database queries by it.
+ */
+public final class RequestDeadline {
+
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    private final long deadlineNanos;
+
+    private RequestDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static RequestDeadline after(Duration timeout) {
+        return new RequestDeadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * The deadline of a request: the one set by the caller in the {@value #HEADER} header if it is sooner than
+     * {@code timeout}.
+     */
+    public static RequestDeadline of(HttpHeaders headers, Duration timeout) {
+        String header = headers.getFirst(HEADER);
+        if (header != null) {
+            try {
+                long requested = Long.parseLong(header.trim());
+                if (requested < timeout.toMillis()) {
+                    return after(Duration.ofMillis(requested));
+                }
+            } catch (NumberFormatException e) {
+                // ignored, like a missing header
+            }
+        }
+        return after(timeout);
+    }
+
+    public static Optional<RequestDeadline> current(ContextView context) {
+        return context.getOrEmpty(RequestDeadline.class);
+    }
+
+    public Context addTo(Context context) {
+        return context.put(RequestDeadline.class, this);
+    }
+
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    public boolean isLaterThan(RequestDeadline other) {
+        return deadlineNanos - other.deadlineNanos > 0;
+    }
+
+    public boolean isExpired() {
+        return remainingMillis() <= 0;
+    }
+
+    /**
+     * Sends the deadline of the current request, if any, along with each call of a {@code WebClient}. A call is not
+     * sent at all once the deadline has passed.
+     */
+    public static ExchangeFilterFunction propagation() {
+        return (request, next) -> Mono.deferContextual(context -> {
+            Optional<RequestDeadline> deadline = current(context);
+            if (deadline.isEmpty()) {
+                return next.exchange(request);
+            }
+            long remaining = deadline.get().remainingMillis();
+            if (remaining <= 0) {
+                return Mono.error(new TimeoutException("Request deadline exceeded before calling " + request.url()));
+            }
+            return next.exchange(ClientRequest.from(request)
+                .headers(headers -> headers.set(HEADER, Long.toString(remaining)))
+                .build());
+        });
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.web.reactive.config.ResourceHandlerRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.resource.EncodedResourceResolver;
+
+import java.time.Duration;
+
+/**
+ * Serves the bundles fingerprinted at build time (see the {@code fingerprint-assets} execution of the pom).
+ * <p>
+ * Their names carry a hash of their content, so they are cached as {@code immutable} for a year and get a strong
+ * ETag derived from the file name. The gzip variant written next to each bundle is served to clients accepting it,
+ * so nothing is compressed per request.
+ */
+@Configuration
+class StaticResourcesConfig implements WebFluxConfigurer {
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/assets/**")
+            .addResourceLocations("classpath:/assets/")
+            .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+            .setUseLastModified(false)
+            .setEtagGenerator(StaticResourcesConfig::etag)
+            .resourceChain(true)
+            .addResolver(new EncodedResourceResolver());
+    }
+
+    /**
+     * The gzip variant is resolved as a resource of its own, so its ETag differs from the identity one.
+     */
+    private static String etag(Resource resource) {
+        return "\"" + resource.getFilename() + "\"";
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Micro-batching of visits-service lookups across concurrent gateway requests.
+ *
+ * @param enabled whether pet ids requested by concurrent callers are merged into a single visits-service call
+ * @param window  how long the first caller of a batch waits for other callers before the batch is sent
+ * @param maxIds  number of distinct pet ids that sends a batch before its window elapses
+ */
+@ConfigurationProperties(prefix = "gateway.visits-batch")
+public record VisitsBatchProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("2ms") Duration window,
+    @DefaultValue("100") int maxIds
+) {
+}
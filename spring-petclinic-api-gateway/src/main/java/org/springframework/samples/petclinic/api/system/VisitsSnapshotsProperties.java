@@ -0,0 +1,33 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Off-heap store of the last visits successfully read from visits-service, served when its circuit breaker is open.
+ *
+ * @param enabled  whether visits are recorded and served as a fallback
+ * @param capacity off-heap memory reserved for the store; the oldest visits are overwritten once it is full
+ */
+@ConfigurationProperties(prefix = "gateway.visits-snapshots")
+public record VisitsSnapshotsProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("16MB") DataSize capacity
+) {
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Warm-up of the gateway before it reports itself ready, see {@link WarmUpRunner}.
+ *
+ * @param enabled            whether the gateway is warmed up
+ * @param requests           number of requests replayed against the gateway's own endpoints
+ * @param concurrency        number of requests replayed at the same time
+ * @param timeout            time after which the gateway reports itself ready even if the warm-up has not finished
+ * @param paths              the request mix: GET requests replayed in turn
+ * @param healthCheckTimeout time a service is given to answer its health check, only the paths of healthy services
+ *                           being replayed
+ */
+@ConfigurationProperties(prefix = "gateway.warm-up")
+public record WarmUpProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("500") int requests,
+    @DefaultValue("8") int concurrency,
+    @DefaultValue("30s") Duration timeout,
+    @DefaultValue({"/api/gateway/owners/1", "/api/customer/owners/search?size=20", "/api/customer/petTypes",
+        "/api/visit/pets/visits?petId=7,8", "/api/vet/vets"}) List<String> paths,
+    @DefaultValue("5s") Duration healthCheckTimeout
+) {
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Warms the gateway up before it takes traffic: replays a synthetic request mix against its own endpoints, so that
+ * the JIT compiles the hot paths and the connection pools of the routes and the service clients are opened.
+ * <p>
+ * Failed requests would open the circuit breakers, spend the retry budgets, shrink the adaptive concurrency limits
+ * and eject instances right before the gateway takes traffic. So only the paths whose services are all registered
+ * and answer their health check are replayed, and the warm-up stops at the first failed request.
+ * <p>
+ * Application runners complete before Spring Boot switches the readiness state to {@code ACCEPTING_TRAFFIC}, so the
+ * readiness probe fails during the warm-up. The instance registers in Eureka as {@code STARTING}
+ * ({@code eureka.instance.initial-status}) and is only switched {@code UP} here, once warmed up.
+ */
+@Component
+class WarmUpRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    /**
+     * Services behind the paths of the gateway: its routes and {@code ApiGatewayController}.
+     */
+    private static final Map<String, List<String>> SERVICES_BY_PATH_PREFIX = Map.of(
+        "/api/gateway/", List.of("customers-service", "visits-service"),
+        "/api/customer/", List.of("customers-service"),
+        "/api/visit/", List.of("visits-service"),
+        "/api/vet/", List.of("vets-service"),
+        "/api/genai/", List.of("genai-service"));
+
+    private final WarmUpProperties properties;
+
+    private final Environment environment;
+
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+
+    private final DiscoveryClient discoveryClient;
+
+    WarmUpRunner(WarmUpProperties properties, Environment environment,
+                 ObjectProvider<ApplicationInfoManager> applicationInfoManager, DiscoveryClient discoveryClient) {
+        this.properties = properties;
+        this.environment = environment;
+        this.applicationInfoManager = applicationInfoManager;
+        this.discoveryClient = discoveryClient;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            Integer port = environment.getProperty("local.server.port", Integer.class);
+            // no web server, e.g. in tests
+            if (properties.enabled() && port != null && !properties.paths().isEmpty()) {
+                replayRequests(port);
+            }
+        } finally {
+            applicationInfoManager.ifAvailable(manager -> manager.setInstanceStatus(InstanceInfo.InstanceStatus.UP));
+        }
+    }
+
+    private void replayRequests(int port) {
+        List<String> paths = reachablePaths();
+        if (paths.isEmpty()) {
+            log.info("Skipping the warm-up, none of the services it calls is reachable");
+            return;
+        }
+        WebClient client = WebClient.create("http://localhost:" + port);
+        Flux.range(0, properties.requests())
+            .flatMap(i -> client.get()
+                .uri(paths.get(i % paths.size()))
+                .retrieve()
+                .toBodilessEntity(), properties.concurrency())
+            .then()
+            .timeout(properties.timeout(), Mono.empty())
+            .onErrorResume(e -> {
+                log.info("Stopped the warm-up at the first failed request: {}", e.getMessage());
+                return Mono.empty();
+            })
+            .block();
+    }
+
+    private List<String> reachablePaths() {
+        Map<String, Boolean> reachableServices = new HashMap<>();
+        return properties.paths().stream()
+            .filter(path -> services(path).stream()
+                .allMatch(serviceId -> reachableServices.computeIfAbsent(serviceId, this::isReachable)))
+            .toList();
+    }
+
+    private static List<String> services(String path) {
+        return SERVICES_BY_PATH_PREFIX.entrySet().stream()
+            .filter(entry -> path.startsWith(entry.getKey()))
+            .map(Map.Entry::getValue)
+            .findFirst()
+            .orElse(List.of());
+    }
+
+    /**
+     * Whether one of the registered instances of the service answers its health check, called directly rather
+     * than through the gateway.
+     */
+    private boolean isReachable(String serviceId) {
+        WebClient client = WebClient.create();
+        Boolean reachable = Flux.fromIterable(discoveryClient.getInstances(serviceId))
+            .map(ServiceInstance::getUri)
+            .flatMap(uri -> client.get()
+                .uri(uri.resolve("/actuator/health"))
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(properties.healthCheckTimeout())
+                .onErrorResume(e -> Mono.empty()))
+            .hasElements()
+            .block();
+        return Boolean.TRUE.equals(reachable);
+    }
+}
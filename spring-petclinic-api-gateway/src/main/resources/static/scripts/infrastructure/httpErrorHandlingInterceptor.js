@@ -5,12 +5,34 @@
  */
 angular.module('infrastructure')
     .factory('HttpErrorHandlingInterceptor', function () {
+        function alertError(response) {
+            var error = response.data || {};
+            if (angular.isString(error)) {
+                alert(error);
+                return;
+            }
+            alert(error.error + "\r\n" + (error.errors || []).map(function (e) {
+                return e.field + ": " + e.defaultMessage;
+            }).join("\r\n"));
+        }
+
         return {
+            response: function (response) {
+                // a batch is answered with 200 whatever the statuses of its requests, which fail one by one
+                if (response.config.url === 'api/gateway/batch' && angular.isArray(response.data)) {
+                    response.data.forEach(function (item) {
+                        if (item.status >= 400) {
+                            alertError({status: item.status, data: item.body});
+                        }
+                    });
+                }
+                return response;
+            },
             responseError: function (response) {
-                var error = response.data;
-                alert(error.error + "\r\n" + error.errors.map(function (e) {
-                    return e.field + ": " + e.defaultMessage;
-                }).join("\r\n"));
+                // requests cancelled on purpose, such as superseded searches, are not errors
+                if (response.xhrStatus !== 'abort') {
+                    alertError(response);
+                }
                 return response;
             }
         }
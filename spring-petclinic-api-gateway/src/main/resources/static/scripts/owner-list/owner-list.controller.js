@@ -1,10 +1,60 @@
 'use strict';
 
 angular.module('ownerList')
-    .controller('OwnerListController', ['$http', function ($http) {
+    .controller('OwnerListController', ['$http', '$q', function ($http, $q) {
         var self = this;
+        var pageSize = 20;
+        // keyset pages only know the cursor of the next one, so the cursors of the previous pages are kept
+        var previousCursors = [];
+        var cursor = null;
+        // requests sent as the filters are typed may answer out of order: only the latest one is rendered
+        var latestRequest = 0;
+        var pendingRequest = null;
 
-        $http.get('api/customer/owners').then(function (resp) {
-            self.owners = resp.data;
-        });
+        self.filter = {lastName: '', city: ''};
+
+        function load(after) {
+            var request = ++latestRequest;
+            if (pendingRequest) {
+                pendingRequest.resolve();
+            }
+            pendingRequest = $q.defer();
+            $http.get('api/customer/owners/search', {
+                params: {
+                    lastName: self.filter.lastName || undefined,
+                    city: self.filter.city || undefined,
+                    after: after || undefined,
+                    size: pageSize
+                },
+                timeout: pendingRequest.promise
+            }).then(function (resp) {
+                if (request !== latestRequest || resp.status !== 200) {
+                    return;
+                }
+                pendingRequest = null;
+                cursor = after;
+                self.owners = resp.data.owners;
+                self.next = resp.data.next;
+            });
+        }
+
+        self.search = function () {
+            previousCursors = [];
+            load(null);
+        };
+
+        self.nextPage = function () {
+            previousCursors.push(cursor);
+            load(self.next);
+        };
+
+        self.previousPage = function () {
+            load(previousCursors.pop());
+        };
+
+        self.hasPreviousPage = function () {
+            return previousCursors.length > 0;
+        };
+
+        self.search();
     }]);
@@ -4,27 +4,31 @@ angular.module('petForm')
     .controller('PetFormController', ['$http', '$state', '$stateParams', function ($http, $state, $stateParams) {
         var self = this;
         var ownerId = $stateParams.ownerId || 0;
+        var petId = $stateParams.petId || 0;
+
+        // pet types and the edited pet, or its owner, in a single round trip
+        $http.post('api/gateway/batch', [
+            {id: 'types', path: '/api/customer/petTypes'},
+            petId
+                ? {id: 'pet', path: '/api/customer/owners/' + ownerId + '/pets/' + petId}
+                : {id: 'owner', path: '/api/customer/owners/' + ownerId}
+        ]).then(function (resp) {
+            // a failed batch, or failed requests of the batch, have been reported by the HttpErrorHandlingInterceptor
+            if (resp.status !== 200 || resp.data[0].status !== 200 || resp.data[1].status !== 200) {
+                return;
+            }
+            self.types = resp.data[0].body;
 
-        $http.get('api/customer/petTypes').then(function (resp) {
-            self.types = resp.data;
-        }).then(function () {
-
-            var petId = $stateParams.petId || 0;
-
+            var result = resp.data[1];
             if (petId) { // edit
-                $http.get("api/customer/owners/" + ownerId + "/pets/" + petId).then(function (resp) {
-                    self.pet = resp.data;
-                    self.pet.birthDate = new Date(self.pet.birthDate);
-                    self.petTypeId = "" + self.pet.type.id;
-                });
+                self.pet = result.body;
+                self.pet.birthDate = new Date(self.pet.birthDate);
+                self.petTypeId = "" + self.pet.type.id;
             } else {
-                $http.get('api/customer/owners/' + ownerId).then(function (resp) {
-                    self.pet = {
-                        owner: resp.data.firstName + " " + resp.data.lastName
-                    };
-                    self.petTypeId = "1";
-                })
-
+                self.pet = {
+                    owner: result.body.firstName + " " + result.body.lastName
+                };
+                self.petTypeId = "1";
             }
         });
 
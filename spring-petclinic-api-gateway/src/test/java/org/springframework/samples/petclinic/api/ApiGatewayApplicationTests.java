@@ -1,15 +1,28 @@
 package org.springframework.samples.petclinic.api;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.samples.petclinic.api.system.PeakEwmaLoadBalancer;
 import org.springframework.test.context.ActiveProfiles;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @ActiveProfiles("test")
 @SpringBootTest
 class ApiGatewayApplicationTests {
 
+	@Autowired
+	private LoadBalancerClientFactory loadBalancerClientFactory;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void shouldUsePeakEwmaLoadBalancerForEveryService() {
+		assertThat(loadBalancerClientFactory.getInstance("customers-service")).isInstanceOf(PeakEwmaLoadBalancer.class);
+	}
+
 }
@@ -0,0 +1,82 @@
+package org.springframework.samples.petclinic.api.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.api.dto.OwnerDetails;
+import org.springframework.samples.petclinic.api.dto.PetDetails;
+import org.springframework.samples.petclinic.api.system.OwnerDetailsCacheProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OwnerDetailsCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OwnerDetailsCache cache;
+
+    private OwnerDetails owner;
+
+    @BeforeEach
+    void setUp() {
+        cache = new OwnerDetailsCache(new OwnerDetailsCacheProperties(true, 100, Duration.ofMinutes(5)), meterRegistry);
+        owner = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .id(1)
+            .pets(List.of(PetDetails.PetDetailsBuilder.aPetDetails().id(20).name("Garfield").build()))
+            .build();
+    }
+
+    @Test
+    void shouldReturnCachedOwnerAndRecordHits() {
+        cache.put(owner, cache.generation(1));
+
+        assertThat(cache.get(1)).isSameAs(owner);
+        assertThat(cache.get(2)).isNull();
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "ownerDetails").tag("result", "hit")
+            .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictOwnerWhenOwnerChanges() {
+        cache.put(owner, cache.generation(1));
+
+        cache.onOwnerChanged(new OwnerChangedEvent(1, null));
+
+        assertThat(cache.get(1)).isNull();
+    }
+
+    @Test
+    void shouldEvictOwnerWhenOneOfItsPetsChanges() {
+        cache.put(owner, cache.generation(1));
+
+        cache.onOwnerChanged(new OwnerChangedEvent(null, 20));
+
+        assertThat(cache.get(1)).isNull();
+    }
+
+    @Test
+    void shouldNotCacheOwnerReadBeforeItChanged() {
+        long generation = cache.generation(1);
+
+        cache.onOwnerChanged(new OwnerChangedEvent(1, null));
+        cache.put(owner, generation);
+
+        assertThat(cache.get(1)).isNull();
+
+        cache.put(owner, cache.generation(1));
+
+        assertThat(cache.get(1)).isSameAs(owner);
+    }
+
+    @Test
+    void shouldNotCacheWhenDisabled() {
+        cache = new OwnerDetailsCache(new OwnerDetailsCacheProperties(false, 100, Duration.ofMinutes(5)), meterRegistry);
+
+        cache.put(owner, cache.generation(1));
+
+        assertThat(cache.get(1)).isNull();
+    }
+}
@@ -0,0 +1,83 @@
+package org.springframework.samples.petclinic.api.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RequestCoalescer<Integer, String> coalescer = new RequestCoalescer<>("test", meterRegistry);
+
+    @Test
+    void shouldShareInFlightCallBetweenCallersOfSameKey() {
+        Sinks.One<String> response = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicReference<String> first = new AtomicReference<>();
+        AtomicReference<String> second = new AtomicReference<>();
+
+        coalescer.execute(1, () -> response.asMono().doOnSubscribe(s -> calls.incrementAndGet())).subscribe(first::set);
+        coalescer.execute(1, () -> response.asMono().doOnSubscribe(s -> calls.incrementAndGet())).subscribe(second::set);
+        response.tryEmitValue("owner");
+
+        assertThat(first).hasValue("owner");
+        assertThat(second).hasValue("owner");
+        assertThat(calls).hasValue(1);
+        assertThat(coalescer.inFlightCount()).isZero();
+        assertThat(meterRegistry.get("gateway.coalescing.calls").tag("result", "coalesced").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPropagateErrorToEveryCaller() {
+        Sinks.One<String> response = Sinks.one();
+        AtomicReference<Throwable> first = new AtomicReference<>();
+        AtomicReference<Throwable> second = new AtomicReference<>();
+
+        coalescer.execute(1, response::asMono).subscribe(v -> { }, first::set);
+        coalescer.execute(1, response::asMono).subscribe(v -> { }, second::set);
+        response.tryEmitError(new IllegalStateException("boom"));
+
+        assertThat(first.get()).hasMessage("boom");
+        assertThat(second.get()).hasMessage("boom");
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    void shouldKeepCallRunningWhileOneCallerRemains() {
+        Sinks.One<String> response = Sinks.one();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicReference<String> second = new AtomicReference<>();
+
+        Disposable first = coalescer.execute(1, () -> response.asMono().doOnCancel(() -> cancelled.set(true))).subscribe();
+        coalescer.execute(1, response::asMono).subscribe(second::set);
+        first.dispose();
+
+        assertThat(cancelled).isFalse();
+        response.tryEmitValue("owner");
+        assertThat(second).hasValue("owner");
+    }
+
+    @Test
+    void shouldCancelCallOnceAllCallersCancelled() {
+        Sinks.One<String> response = Sinks.one();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        Disposable first = coalescer.execute(1, () -> response.asMono().doOnCancel(() -> cancelled.set(true))).subscribe();
+        Disposable second = coalescer.execute(1, response::asMono).subscribe();
+        first.dispose();
+        second.dispose();
+
+        assertThat(cancelled).isTrue();
+        assertThat(coalescer.inFlightCount()).isZero();
+        assertThat(coalescer.execute(1, () -> Mono.just("again")).block()).isEqualTo("again");
+    }
+}
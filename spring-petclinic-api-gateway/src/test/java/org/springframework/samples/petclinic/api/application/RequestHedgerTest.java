@@ -0,0 +1,127 @@
+package org.springframework.samples.petclinic.api.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.api.system.HedgedRequest;
+import org.springframework.samples.petclinic.api.system.HedgingProperties;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestHedgerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldNotHedgeFastCalls() {
+        RequestHedger hedger = hedger(10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.execute(attributes -> {
+            attempts.incrementAndGet();
+            return Mono.just("owner");
+        }).block();
+
+        assertThat(result).isEqualTo("owner");
+        assertThat(attempts).hasValue(1);
+        assertThat(count("gateway.hedging.hedges")).isZero();
+    }
+
+    @Test
+    void shouldAnswerWithHedgeAndCancelSlowAttempt() {
+        RequestHedger hedger = hedger(10);
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicBoolean firstCancelled = new AtomicBoolean();
+        List<Object> hedgedRequests = new ArrayList<>();
+
+        String result = hedger.execute(attributes -> {
+            Map<String, Object> requestAttributes = new HashMap<>();
+            attributes.accept(requestAttributes);
+            hedgedRequests.add(requestAttributes.get(HedgedRequest.ATTRIBUTE));
+            return attempts.incrementAndGet() == 1
+                ? Mono.<String>never().doOnCancel(() -> firstCancelled.set(true))
+                : Mono.just("hedge");
+        }).block(Duration.ofSeconds(5));
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat(firstCancelled).isTrue();
+        assertThat(hedgedRequests).hasSize(2).doesNotContainNull();
+        assertThat(hedgedRequests.get(0)).isSameAs(hedgedRequests.get(1));
+        assertThat(count("gateway.hedging.hedges")).isEqualTo(1);
+        assertThat(count("gateway.hedging.wins")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotHedgeOnceBudgetIsExhausted() {
+        RequestHedger hedger = hedger(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            hedger.execute(attributes -> attempts.incrementAndGet() % 2 == 1
+                ? Mono.delay(Duration.ofMillis(200)).thenReturn("first")
+                : Mono.just("hedge")).block(Duration.ofSeconds(5));
+        }
+
+        assertThat(count("gateway.hedging.hedges")).isEqualTo(1);
+        assertThat(count("gateway.hedging.budget.exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPropagateErrorOfFirstAttempt() {
+        RequestHedger hedger = hedger(10);
+
+        assertThatThrownBy(() -> hedger.execute(attributes -> Mono.error(new IllegalStateException("boom"))).block())
+            .hasMessage("boom");
+        assertThat(count("gateway.hedging.hedges")).isZero();
+    }
+
+    @Test
+    void shouldAnswerWithHedgeWhenFirstAttemptFailsAfterHedgeWasSent() {
+        RequestHedger hedger = hedger(10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.execute(attributes -> attempts.incrementAndGet() == 1
+            ? Mono.delay(Duration.ofMillis(50)).then(Mono.<String>error(new IllegalStateException("boom")))
+            : Mono.delay(Duration.ofMillis(200)).thenReturn("hedge")).block(Duration.ofSeconds(5));
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat(count("gateway.hedging.wins")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPropagateErrorOfFirstAttemptWhenBothFail() {
+        RequestHedger hedger = hedger(10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> hedger.execute(attributes -> attempts.incrementAndGet() == 1
+            ? Mono.delay(Duration.ofMillis(50)).then(Mono.<String>error(new IllegalStateException("first")))
+            : Mono.<String>error(new IllegalStateException("hedge"))).block(Duration.ofSeconds(5)))
+            .hasMessage("first");
+        assertThat(count("gateway.hedging.hedges")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldAnswerEmptyWhenFirstAttemptDoes() {
+        RequestHedger hedger = hedger(10);
+
+        assertThat(hedger.execute(attributes -> Mono.<String>empty()).blockOptional(Duration.ofSeconds(5))).isEmpty();
+    }
+
+    private RequestHedger hedger(int budgetBurst) {
+        return new RequestHedger("test", new HedgingProperties(true, 0.95, Duration.ofMillis(10), 0, budgetBurst),
+            meterRegistry);
+    }
+
+    private double count(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+}
@@ -0,0 +1,93 @@
+package org.springframework.samples.petclinic.api.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.api.dto.VisitDetails;
+import org.springframework.samples.petclinic.api.dto.Visits;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VisitsBatchLoaderTest {
+
+    private final Scheduler scheduler = Schedulers.newSingle("visits-batch-test");
+
+    private final List<List<Integer>> calls = new ArrayList<>();
+
+    private final Sinks.One<Visits> response = Sinks.one();
+
+    @AfterEach
+    void disposeScheduler() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void shouldSendOneCallForLookupsWithinWindow() {
+        VisitsBatchLoader loader = loader(Duration.ofMillis(20), 100);
+        response.tryEmitValue(new Visits(List.of(visit(1, 1), visit(2, 2), visit(3, 1))));
+
+        var results = Mono.zip(loader.load(List.of(1)), loader.load(List.of(2, 1))).block();
+
+        assertThat(calls).containsExactly(List.of(1, 2));
+        assertThat(results.getT1().items()).extracting(VisitDetails::id).containsExactly(1, 3);
+        assertThat(results.getT2().items()).extracting(VisitDetails::id).containsExactly(2, 1, 3);
+    }
+
+    @Test
+    void shouldSendBatchOnceMaxIdsReached() {
+        VisitsBatchLoader loader = loader(Duration.ofMinutes(1), 3);
+        AtomicReference<Visits> first = new AtomicReference<>();
+
+        loader.load(List.of(1, 2)).subscribe(first::set);
+        assertThat(calls).isEmpty();
+        loader.load(List.of(3)).subscribe();
+        response.tryEmitValue(new Visits(List.of(visit(1, 2))));
+
+        assertThat(calls).containsExactly(List.of(1, 2, 3));
+        assertThat(first.get().items()).extracting(VisitDetails::id).containsExactly(1);
+    }
+
+    @Test
+    void shouldSendPendingBatchWhenLookupDoesNotFit() {
+        VisitsBatchLoader loader = loader(Duration.ofMinutes(1), 3);
+
+        loader.load(List.of(1, 2)).subscribe();
+        loader.load(List.of(3, 4)).subscribe();
+
+        assertThat(calls).containsExactly(List.of(1, 2));
+    }
+
+    @Test
+    void shouldPropagateErrorToEveryCaller() {
+        VisitsBatchLoader loader = loader(Duration.ofMinutes(1), 2);
+        AtomicReference<Throwable> first = new AtomicReference<>();
+        AtomicReference<Throwable> second = new AtomicReference<>();
+
+        loader.load(List.of(1)).subscribe(visits -> { }, first::set);
+        loader.load(List.of(2)).subscribe(visits -> { }, second::set);
+        response.tryEmitError(new IllegalStateException("boom"));
+
+        assertThat(first.get()).hasMessage("boom");
+        assertThat(second.get()).hasMessage("boom");
+    }
+
+    private VisitsBatchLoader loader(Duration window, int maxIds) {
+        return new VisitsBatchLoader(petIds -> {
+            calls.add(petIds);
+            return response.asMono();
+        }, window, maxIds, scheduler, new SimpleMeterRegistry());
+    }
+
+    private static VisitDetails visit(int id, int petId) {
+        return new VisitDetails(id, petId, null, null);
+    }
+}
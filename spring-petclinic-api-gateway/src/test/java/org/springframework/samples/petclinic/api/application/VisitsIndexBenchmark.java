@@ -0,0 +1,84 @@
+package org.springframework.samples.petclinic.api.application;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.samples.petclinic.api.dto.OwnerDetails;
+import org.springframework.samples.petclinic.api.dto.PetDetails;
+import org.springframework.samples.petclinic.api.dto.VisitDetails;
+import org.springframework.samples.petclinic.api.dto.Visits;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-pet stream filtering previously used by the gateway to merge visits into an owner
+ * with {@link VisitsIndex}, for owners ranging from a single pet to a shelter.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=VisitsIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisitsIndexBenchmark {
+
+    @Param({"1", "10", "100", "500"})
+    private int pets;
+
+    @Param({"5", "20"})
+    private int visitsPerPet;
+
+    private OwnerDetails owner;
+
+    private Visits visits;
+
+    @Setup
+    public void setUp() {
+        List<PetDetails> petDetails = new ArrayList<>(pets);
+        List<VisitDetails> visitDetails = new ArrayList<>(pets * visitsPerPet);
+        for (int petId = 1; petId <= pets; petId++) {
+            petDetails.add(PetDetails.PetDetailsBuilder.aPetDetails()
+                .id(petId)
+                .name("pet-" + petId)
+                .build());
+            for (int v = 0; v < visitsPerPet; v++) {
+                visitDetails.add(new VisitDetails(visitDetails.size(), petId, "2024-01-01", "visit " + v));
+            }
+        }
+        Collections.shuffle(visitDetails, new Random(42));
+        owner = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .id(1)
+            .pets(petDetails)
+            .build();
+        visits = new Visits(visitDetails);
+    }
+
+    @Benchmark
+    public void filterPerPet(Blackhole blackhole) {
+        for (PetDetails pet : owner.pets()) {
+            blackhole.consume(visits.items().stream()
+                .filter(v -> v.petId() == pet.id())
+                .toList());
+        }
+    }
+
+    @Benchmark
+    public OwnerDetails indexedMerge() {
+        return VisitsIndex.of(visits.items()).addTo(owner);
+    }
+}
@@ -0,0 +1,56 @@
+package org.springframework.samples.petclinic.api.application;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.api.dto.OwnerDetails;
+import org.springframework.samples.petclinic.api.dto.PetDetails;
+import org.springframework.samples.petclinic.api.dto.VisitDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VisitsIndexTest {
+
+    @Test
+    void shouldGroupVisitsByPetInReceivedOrder() {
+        VisitsIndex index = VisitsIndex.of(List.of(
+            new VisitDetails(1, 7, null, "first"),
+            new VisitDetails(2, 8, null, "other pet"),
+            new VisitDetails(3, 7, null, "second"),
+            new VisitDetails(4, null, null, "orphan")));
+
+        assertThat(index.visitsOf(7)).extracting(VisitDetails::description).containsExactly("first", "second");
+        assertThat(index.visitsOf(8)).extracting(VisitDetails::description).containsExactly("other pet");
+        assertThat(index.visitsOf(9)).isEmpty();
+    }
+
+    @Test
+    void shouldHandleCollidingPetIds() {
+        List<VisitDetails> visits = IntStream.range(0, 1_000)
+            .mapToObj(i -> new VisitDetails(i, (i % 250) * 1024, null, "visit " + i))
+            .toList();
+
+        VisitsIndex index = VisitsIndex.of(visits);
+
+        IntStream.range(0, 250).forEach(pet -> assertThat(index.visitsOf(pet * 1024)).hasSize(4));
+    }
+
+    @Test
+    void shouldAddVisitsWithoutModifyingOwner() {
+        PetDetails cat = PetDetails.PetDetailsBuilder.aPetDetails()
+            .id(20)
+            .name("Garfield")
+            .visits(new ArrayList<>())
+            .build();
+        OwnerDetails owner = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .pets(List.of(cat))
+            .build();
+
+        OwnerDetails merged = VisitsIndex.of(List.of(new VisitDetails(1, 20, null, "checkup"))).addTo(owner);
+
+        assertThat(merged.pets().get(0).visits()).extracting(VisitDetails::description).containsExactly("checkup");
+        assertThat(cat.visits()).isEmpty();
+    }
+}
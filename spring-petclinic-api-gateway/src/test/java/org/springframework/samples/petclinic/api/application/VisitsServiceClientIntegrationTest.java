@@ -1,20 +1,27 @@
 package org.springframework.samples.petclinic.api.application;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.samples.petclinic.api.dto.Visits;
+import org.springframework.samples.petclinic.api.system.HedgingProperties;
+import org.springframework.samples.petclinic.api.system.RequestDeadline;
+import org.springframework.samples.petclinic.api.system.VisitsBatchProperties;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
 import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class VisitsServiceClientIntegrationTest {
 
@@ -27,8 +34,7 @@ class VisitsServiceClientIntegrationTest {
     @BeforeEach
     void setUp() {
         server = new MockWebServer();
-        visitsServiceClient = new VisitsServiceClient(WebClient.builder());
-        visitsServiceClient.setHostname(server.url("/").toString());
+        visitsServiceClient = visitsServiceClient(new VisitsBatchProperties(true, Duration.ofMillis(2), 100));
     }
 
     @AfterEach
@@ -47,6 +53,65 @@ class VisitsServiceClientIntegrationTest {
         assertVisitDescriptionEquals(visits.block(), PET_ID,"test visit");
     }
 
+    @Test
+    void getVisitsForPets_concurrentCallsShareOneRequest() throws InterruptedException {
+        // the batch is sent once it holds 2 pet ids, whatever the scheduling of this test
+        visitsServiceClient = visitsServiceClient(new VisitsBatchProperties(true, Duration.ofMinutes(1), 2));
+        prepareResponse(response -> response
+            .setHeader("Content-Type", "application/json")
+            .setBody("{\"items\":[{\"id\":5,\"date\":\"2018-11-15\",\"description\":\"first visit\",\"petId\":1}," +
+                "{\"id\":6,\"date\":\"2018-11-16\",\"description\":\"second visit\",\"petId\":2}]}"));
+
+        Mono<Visits> first = visitsServiceClient.getVisitsForPets(List.of(1));
+        Mono<Visits> second = visitsServiceClient.getVisitsForPets(List.of(2));
+        var results = Mono.zip(first, second).block();
+
+        assertVisitDescriptionEquals(results.getT1(), 1, "first visit");
+        assertVisitDescriptionEquals(results.getT2(), 2, "second visit");
+        assertEquals(1, server.getRequestCount());
+        assertEquals("/pets/visits?petId=1%2C2", server.takeRequest().getPath());
+    }
+
+    @Test
+    void getVisitsForPets_sendsRequestDeadline() throws InterruptedException {
+        prepareResponse(response -> response
+            .setHeader("Content-Type", "application/json")
+            .setBody("{\"items\":[]}"));
+
+        visitsServiceClient.getVisitsForPets(List.of(1))
+            .contextWrite(RequestDeadline.after(Duration.ofSeconds(10))::addTo)
+            .block();
+
+        assertDeadlineSent();
+    }
+
+    @Test
+    void getVisitsForPets_withoutBatchingSendsRequestDeadline() throws InterruptedException {
+        visitsServiceClient = visitsServiceClient(new VisitsBatchProperties(false, Duration.ofMillis(2), 100));
+        prepareResponse(response -> response
+            .setHeader("Content-Type", "application/json")
+            .setBody("{\"items\":[]}"));
+
+        visitsServiceClient.getVisitsForPets(List.of(1))
+            .contextWrite(RequestDeadline.after(Duration.ofSeconds(10))::addTo)
+            .block();
+
+        assertDeadlineSent();
+    }
+
+    private void assertDeadlineSent() throws InterruptedException {
+        String timeout = server.takeRequest().getHeader(RequestDeadline.HEADER);
+        assertNotNull(timeout);
+        assertTrue(Long.parseLong(timeout) > 0 && Long.parseLong(timeout) <= 10_000);
+    }
+
+    private VisitsServiceClient visitsServiceClient(VisitsBatchProperties batchProperties) {
+        WebClient webClient = WebClient.builder().filter(RequestDeadline.propagation()).build();
+        VisitsServiceClient client = new VisitsServiceClient(webClient, new SimpleMeterRegistry(),
+            batchProperties, new HedgingProperties(false, 0.95, Duration.ofMillis(20), 0.1, 10));
+        client.setHostname(server.url("/").toString());
+        return client;
+    }
 
     private void assertVisitDescriptionEquals(Visits visits, int petId, String description) {
         assertEquals(1, visits.items().size());
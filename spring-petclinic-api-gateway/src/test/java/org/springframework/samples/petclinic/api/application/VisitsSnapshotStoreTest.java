@@ -0,0 +1,96 @@
+package org.springframework.samples.petclinic.api.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.api.application.VisitsSnapshotStore.VisitsSnapshot;
+import org.springframework.samples.petclinic.api.dto.VisitDetails;
+import org.springframework.samples.petclinic.api.dto.Visits;
+import org.springframework.samples.petclinic.api.system.VisitsSnapshotsProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VisitsSnapshotStoreTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void shouldServeLastVisitsOfRequestedPets() {
+        VisitsSnapshotStore store = store(DataSize.ofKilobytes(64));
+        store.put(List.of(1, 2, 3), new Visits(List.of(
+            new VisitDetails(10, 1, "2024-01-01", "Rabies shot"),
+            new VisitDetails(11, 2, null, null),
+            new VisitDetails(12, 1, "2024-02-01", "Neutered"))));
+
+        VisitsSnapshot snapshot = store.get(List.of(1, 3)).orElseThrow();
+
+        assertThat(snapshot.visits().items()).containsExactly(
+            new VisitDetails(10, 1, "2024-01-01", "Rabies shot"),
+            new VisitDetails(12, 1, "2024-02-01", "Neutered"));
+        assertThat(store.get(List.of(2)).orElseThrow().visits().items()).containsExactly(new VisitDetails(11, 2, null, null));
+        assertThat(store.get(List.of(3)).orElseThrow().visits().items()).isEmpty();
+        assertThat(store.get(List.of(4))).isEmpty();
+    }
+
+    @Test
+    void shouldReportOldestUpdateOfRequestedPets() {
+        VisitsSnapshotStore store = store(DataSize.ofKilobytes(64));
+        store.put(List.of(1), new Visits(List.of(new VisitDetails(10, 1, null, "First"))));
+        clock.now = clock.now.plusSeconds(60);
+        store.put(List.of(2), new Visits(List.of(new VisitDetails(11, 2, null, "Second"))));
+
+        assertThat(store.get(List.of(1, 2)).orElseThrow().updatedAt()).isEqualTo(clock.now.minusSeconds(60));
+        assertThat(store.get(List.of(2)).orElseThrow().updatedAt()).isEqualTo(clock.now);
+    }
+
+    @Test
+    void shouldReplacePreviousVisitsOfPet() {
+        VisitsSnapshotStore store = store(DataSize.ofKilobytes(64));
+        store.put(List.of(1), new Visits(List.of(new VisitDetails(10, 1, null, "First"))));
+        store.put(List.of(1), new Visits(List.of(new VisitDetails(11, 1, null, "Second"))));
+
+        assertThat(store.get(List.of(1)).orElseThrow().visits().items()).extracting(VisitDetails::id).containsExactly(11);
+    }
+
+    @Test
+    void shouldOverwriteOldestPetsOnceFull() {
+        VisitsSnapshotStore store = store(DataSize.ofBytes(1024));
+        for (int petId = 1; petId <= 100; petId++) {
+            store.put(List.of(petId), new Visits(List.of(new VisitDetails(petId, petId, "2024-01-01", "Check-up"))));
+        }
+
+        assertThat(store.get(List.of(1))).isEmpty();
+        assertThat(store.get(List.of(100)).orElseThrow().visits().items()).extracting(VisitDetails::id).containsExactly(100);
+        assertThat(store.size()).isBetween(1, 30);
+    }
+
+    private VisitsSnapshotStore store(DataSize capacity) {
+        return new VisitsSnapshotStore(new VisitsSnapshotsProperties(true, capacity), new SimpleMeterRegistry(), clock);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-06-01T10:00:00Z");
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
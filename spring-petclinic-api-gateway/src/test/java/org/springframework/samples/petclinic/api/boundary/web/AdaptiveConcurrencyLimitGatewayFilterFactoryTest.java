@@ -0,0 +1,60 @@
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Sinks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitGatewayFilterFactoryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AdaptiveConcurrencyLimitGatewayFilterFactory factory =
+        new AdaptiveConcurrencyLimitGatewayFilterFactory(meterRegistry);
+
+    @Test
+    void shouldRejectRequestsAboveLimitWithRetryAfter() {
+        AdaptiveConcurrencyLimitGatewayFilterFactory.Config config = new AdaptiveConcurrencyLimitGatewayFilterFactory.Config();
+        config.setInitialLimit(1);
+        config.setMinLimit(1);
+        GatewayFilter filter = factory.apply(config);
+        Sinks.Empty<Void> downstream = Sinks.empty();
+
+        MockServerWebExchange first = exchange();
+        filter.filter(first, exchange -> downstream.asMono()).subscribe();
+        MockServerWebExchange second = exchange();
+        filter.filter(second, exchange -> downstream.asMono()).block();
+
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(second.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("gateway.concurrency.rejected").tag("route", "customers-service").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.concurrency.in-flight").tag("route", "customers-service").gauge().value())
+            .isEqualTo(1);
+
+        downstream.tryEmitEmpty();
+        assertThat(meterRegistry.get("gateway.concurrency.in-flight").tag("route", "customers-service").gauge().value())
+            .isZero();
+        assertThat(meterRegistry.get("gateway.concurrency.limit").tag("route", "customers-service").gauge().value())
+            .isEqualTo(1);
+    }
+
+    private static MockServerWebExchange exchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/customer/owners"));
+        Route route = Route.async()
+            .id("customers-service")
+            .uri("lb://customers-service")
+            .predicate(e -> true)
+            .build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+}
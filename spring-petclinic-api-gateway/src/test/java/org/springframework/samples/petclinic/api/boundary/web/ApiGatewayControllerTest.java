@@ -9,16 +9,23 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JAutoConfiguration;
 import org.springframework.context.annotation.Import;
 import org.springframework.samples.petclinic.api.application.CustomersServiceClient;
+import org.springframework.samples.petclinic.api.application.OwnerDetailsCache;
 import org.springframework.samples.petclinic.api.application.VisitsServiceClient;
+import org.springframework.samples.petclinic.api.application.VisitsSnapshotStore;
+import org.springframework.samples.petclinic.api.application.VisitsSnapshotStore.VisitsSnapshot;
 import org.springframework.samples.petclinic.api.dto.*;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 
 import java.net.ConnectException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(SpringExtension.class)
 @WebFluxTest(controllers = ApiGatewayController.class)
@@ -31,6 +38,12 @@ class ApiGatewayControllerTest {
     @MockBean
     private VisitsServiceClient visitsServiceClient;
 
+    @MockBean
+    private OwnerDetailsCache ownerDetailsCache;
+
+    @MockBean
+    private VisitsSnapshotStore visitsSnapshotStore;
+
     @Autowired
     private WebTestClient client;
 
@@ -94,4 +107,149 @@ class ApiGatewayControllerTest {
             .jsonPath("$.pets[0].visits").isEmpty();
     }
 
+    @Test
+    void getOwnerDetails_withServiceErrorServesLastKnownVisits() {
+        PetDetails cat = PetDetails.PetDetailsBuilder.aPetDetails()
+            .id(20)
+            .name("Garfield")
+            .visits(new ArrayList<>())
+            .build();
+        OwnerDetails owner = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .pets(List.of(cat))
+            .build();
+        Mockito
+            .when(customersServiceClient.getOwner(1))
+            .thenReturn(Mono.just(owner));
+        Mockito
+            .when(visitsServiceClient.getVisitsForPets(Collections.singletonList(cat.id())))
+            .thenReturn(Mono.error(new ConnectException("Simulate error")));
+        Visits lastKnownVisits = new Visits(List.of(new VisitDetails(300, cat.id(), null, "First visit")));
+        Mockito
+            .when(visitsSnapshotStore.get(Collections.singletonList(cat.id())))
+            .thenReturn(Optional.of(new VisitsSnapshot(lastKnownVisits, Instant.now().minusSeconds(120))));
+
+        client.get()
+            .uri("/api/gateway/owners/1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().value(ApiGatewayController.VISITS_STALENESS_HEADER,
+                age -> assertThat(Long.parseLong(age)).isGreaterThanOrEqualTo(120))
+            .expectBody()
+            .jsonPath("$.pets[0].visits[0].description").isEqualTo("First visit");
+    }
+
+    @Test
+    void getOwnerDetails_withFieldsWithoutVisitsSkipsVisitsService() {
+        PetDetails cat = PetDetails.PetDetailsBuilder.aPetDetails()
+            .id(20)
+            .name("Garfield")
+            .type(new PetType("cat"))
+            .visits(new ArrayList<>())
+            .build();
+        OwnerDetails owner = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .firstName("Jon")
+            .lastName("Arbuckle")
+            .pets(List.of(cat))
+            .build();
+        Mockito
+            .when(customersServiceClient.getOwner(1))
+            .thenReturn(Mono.just(owner));
+
+        client.get()
+            .uri("/api/gateway/owners/1?fields=firstName,pets.name")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.firstName").isEqualTo("Jon")
+            .jsonPath("$.lastName").doesNotExist()
+            .jsonPath("$.pets[0].name").isEqualTo("Garfield")
+            .jsonPath("$.pets[0].type").doesNotExist()
+            .jsonPath("$.pets[0].visits").doesNotExist();
+
+        Mockito.verifyNoInteractions(visitsServiceClient);
+    }
+
+    @Test
+    void getOwnersDetails_withFieldsPrunesVisits() {
+        PetDetails cat = PetDetails.PetDetailsBuilder.aPetDetails()
+            .id(20)
+            .name("Garfield")
+            .visits(new ArrayList<>())
+            .build();
+        OwnerDetails jon = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .id(1)
+            .lastName("Arbuckle")
+            .pets(List.of(cat))
+            .build();
+        Mockito
+            .when(customersServiceClient.getOwner(1))
+            .thenReturn(Mono.just(jon));
+        Mockito
+            .when(visitsServiceClient.getVisitsForPets(List.of(cat.id())))
+            .thenReturn(Mono.just(new Visits(List.of(new VisitDetails(300, cat.id(), "2024-01-01", "Cat visit")))));
+
+        client.get()
+            .uri("/api/gateway/owners?ids=1&fields=lastName,pets.visits.date")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$[0].lastName").isEqualTo("Arbuckle")
+            .jsonPath("$[0].id").doesNotExist()
+            .jsonPath("$[0].pets[0].name").doesNotExist()
+            .jsonPath("$[0].pets[0].visits[0].date").isEqualTo("2024-01-01")
+            .jsonPath("$[0].pets[0].visits[0].description").doesNotExist();
+    }
+
+    @Test
+    void getOwnersDetails_withSingleVisitsCall() {
+        PetDetails cat = PetDetails.PetDetailsBuilder.aPetDetails()
+            .id(20)
+            .name("Garfield")
+            .visits(new ArrayList<>())
+            .build();
+        PetDetails dog = PetDetails.PetDetailsBuilder.aPetDetails()
+            .id(21)
+            .name("Odie")
+            .visits(new ArrayList<>())
+            .build();
+        OwnerDetails jon = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .id(1)
+            .pets(List.of(cat))
+            .build();
+        OwnerDetails liz = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .id(2)
+            .pets(List.of(dog))
+            .build();
+        Mockito
+            .when(customersServiceClient.getOwner(1))
+            .thenReturn(Mono.just(jon));
+        Mockito
+            .when(customersServiceClient.getOwner(2))
+            .thenReturn(Mono.just(liz));
+        Mockito
+            .when(customersServiceClient.getOwner(3))
+            .thenReturn(Mono.empty());
+
+        Visits visits = new Visits(List.of(
+            new VisitDetails(300, dog.id(), null, "Dog visit"),
+            new VisitDetails(301, cat.id(), null, "Cat visit")));
+        Mockito
+            .when(visitsServiceClient.getVisitsForPets(List.of(cat.id(), dog.id())))
+            .thenReturn(Mono.just(visits));
+
+        client.get()
+            .uri("/api/gateway/owners?ids=1,2,3")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(2)
+            .jsonPath("$[0].id").isEqualTo(1)
+            .jsonPath("$[0].pets[0].visits[0].description").isEqualTo("Cat visit")
+            .jsonPath("$[1].id").isEqualTo(2)
+            .jsonPath("$[1].pets[0].visits[0].description").isEqualTo("Dog visit");
+
+        Mockito.verify(visitsServiceClient, Mockito.times(1)).getVisitsForPets(Mockito.anyList());
+        Mockito.verify(visitsSnapshotStore).put(List.of(cat.id(), dog.id()), visits);
+    }
+
 }
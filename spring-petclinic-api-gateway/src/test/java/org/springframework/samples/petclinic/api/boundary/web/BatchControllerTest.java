@@ -0,0 +1,117 @@
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.api.system.RequestDeadline;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sends batches through a running gateway, whose customers-service route leads to a mock server.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BatchControllerTest {
+
+    private static final MockWebServer customersService = new MockWebServer();
+
+    @Autowired
+    private WebTestClient client;
+
+    @DynamicPropertySource
+    static void customersService(DynamicPropertyRegistry registry) {
+        customersService.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return switch (request.getPath()) {
+                    case "/petTypes" -> json("[{\"id\":1,\"name\":\"cat\"}]");
+                    case "/owners/1" -> json("{\"id\":1,\"firstName\":\"George\"}");
+                    case "/owners/3" -> json("{\"authorization\":\"" + request.getHeader("Authorization")
+                        + "\",\"traceparent\":\"" + request.getHeader("traceparent")
+                        + "\",\"deadline\":" + (request.getHeader(RequestDeadline.HEADER) != null) + "}");
+                    default -> new MockResponse().setResponseCode(404);
+                };
+            }
+        });
+        registry.add("spring.cloud.discovery.client.simple.instances.customers-service[0].uri",
+            () -> customersService.url("/").toString());
+    }
+
+    @AfterAll
+    static void shutdown() throws IOException {
+        customersService.shutdown();
+    }
+
+    @Test
+    void shouldReturnEachResponseWithItsStatusInRequestOrder() {
+        client.post()
+            .uri("/api/gateway/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(List.of(
+                Map.of("id", "types", "path", "/api/customer/petTypes"),
+                Map.of("id", "owner", "method", "get", "path", "/api/customer/owners/1"),
+                Map.of("id", "unknown", "path", "/api/customer/owners/2"),
+                Map.of("id", "genai", "path", "/api/genai/chatclient"),
+                Map.of("id", "escape", "path", "/api/customer/../genai/chatclient")))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(5)
+            .jsonPath("$[0].id").isEqualTo("types")
+            .jsonPath("$[0].status").isEqualTo(200)
+            .jsonPath("$[0].body[0].name").isEqualTo("cat")
+            .jsonPath("$[1].id").isEqualTo("owner")
+            .jsonPath("$[1].body.firstName").isEqualTo("George")
+            .jsonPath("$[2].status").isEqualTo(404)
+            .jsonPath("$[3].status").isEqualTo(400)
+            .jsonPath("$[4].status").isEqualTo(400);
+    }
+
+    @Test
+    void shouldForwardCredentialsTraceContextAndDeadline() {
+        client.post()
+            .uri("/api/gateway/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("Authorization", "Bearer token")
+            .header("traceparent", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01")
+            .bodyValue(List.of(Map.of("id", "owner", "path", "/api/customer/owners/3")))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$[0].body.authorization").isEqualTo("Bearer token")
+            .jsonPath("$[0].body.traceparent").value(traceparent ->
+                assertThat((String) traceparent).contains("0af7651916cd43dd8448eb211c80319c"))
+            .jsonPath("$[0].body.deadline").isEqualTo(true);
+    }
+
+    @Test
+    void shouldRejectEmptyBatch() {
+        client.post()
+            .uri("/api/gateway/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(List.of())
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse()
+            .setHeader("Content-Type", "application/json")
+            .setBody(body);
+    }
+}
@@ -0,0 +1,108 @@
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BudgetedRetryGatewayFilterFactoryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final BudgetedRetryGatewayFilterFactory factory = new BudgetedRetryGatewayFilterFactory(meterRegistry);
+
+    @Test
+    void shouldRetryUnavailableServiceOnce() {
+        GatewayFilter filter = factory.apply(config(10));
+        Downstream downstream = new Downstream(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.OK);
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/customer/owners"));
+
+        filter.filter(exchange, downstream).block();
+
+        assertThat(downstream.calls).isEqualTo(2);
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(meterRegistry.get("gateway.retry.attempts").tag("route", "customers-service")
+            .tag("service", "customers-service").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldStopRetryingOnceBudgetIsExhausted() {
+        GatewayFilter filter = factory.apply(config(1));
+        Downstream downstream = new Downstream(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.SERVICE_UNAVAILABLE,
+            HttpStatus.SERVICE_UNAVAILABLE);
+
+        filter.filter(exchange(MockServerHttpRequest.get("/api/customer/owners")), downstream).block();
+        MockServerWebExchange second = exchange(MockServerHttpRequest.get("/api/customer/owners"));
+        filter.filter(second, downstream).block();
+
+        assertThat(downstream.calls).isEqualTo(3);
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(meterRegistry.get("gateway.retry.budget.exhausted").tag("route", "customers-service").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotRetryOtherMethods() {
+        GatewayFilter filter = factory.apply(config(10));
+        Downstream downstream = new Downstream(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.OK);
+
+        filter.filter(exchange(MockServerHttpRequest.delete("/api/customer/owners/1")), downstream).block();
+
+        assertThat(downstream.calls).isEqualTo(1);
+    }
+
+    private static BudgetedRetryGatewayFilterFactory.Config config(int budgetBurst) {
+        BudgetedRetryGatewayFilterFactory.Config config = new BudgetedRetryGatewayFilterFactory.Config();
+        config.setMethods(List.of(HttpMethod.GET));
+        config.setBudgetBurst(budgetBurst);
+        config.setFirstBackoff(Duration.ZERO);
+        return config;
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        Route route = Route.async()
+            .id("customers-service")
+            .uri("lb://customers-service")
+            .predicate(e -> true)
+            .build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+
+    /**
+     * Answers each call with the next of the given statuses.
+     */
+    private static class Downstream implements GatewayFilterChain {
+
+        private final Deque<HttpStatus> statuses;
+
+        private int calls;
+
+        Downstream(HttpStatus... statuses) {
+            this.statuses = new ArrayDeque<>(List.of(statuses));
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange) {
+            calls++;
+            exchange.getResponse().setStatusCode(statuses.poll());
+            return Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void shouldRejectOnceLimitIsReached() {
+        GradientLimiter limiter = new GradientLimiter(2, 1, 10, 1.5);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release();
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldGrowWhileLatencyIsStableAndLimitIsUsed() {
+        GradientLimiter limiter = new GradientLimiter(10, 1, 100, 1.5);
+
+        for (int i = 0; i < 50; i++) {
+            saturate(limiter, 10 * MILLIS);
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    void shouldNotGrowWhenLimitIsNotUsed() {
+        GradientLimiter limiter = new GradientLimiter(10, 1, 100, 1.5);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.release(10 * MILLIS, false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldShrinkWhenLatencyDegrades() {
+        GradientLimiter limiter = new GradientLimiter(50, 1, 100, 1.5);
+        for (int i = 0; i < 5; i++) {
+            saturate(limiter, 10 * MILLIS);
+        }
+        int stableLimit = limiter.getLimit();
+
+        for (int i = 0; i < 5; i++) {
+            saturate(limiter, 100 * MILLIS);
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(stableLimit);
+    }
+
+    @Test
+    void shouldBackOffOnDroppedRequestsDownToMinimum() {
+        GradientLimiter limiter = new GradientLimiter(20, 5, 100, 1.5);
+
+        limiter.tryAcquire();
+        limiter.release(10 * MILLIS, true);
+        assertThat(limiter.getLimit()).isEqualTo(18);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(10 * MILLIS, true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    private static void saturate(GradientLimiter limiter, long rttNanos) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(rttNanos, false);
+        }
+    }
+}
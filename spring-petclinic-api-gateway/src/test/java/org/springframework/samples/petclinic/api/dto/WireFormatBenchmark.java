@@ -0,0 +1,133 @@
+package org.springframework.samples.petclinic.api.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON with the binary formats Smile and CBOR on the payloads exchanged between the gateway and the
+ * services: an owner with pets, the visits of these pets and the list of vets.
+ * <p>
+ * The size of each payload in each format is printed before its measurements.
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=WireFormatBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"owner", "visits", "vets"})
+    private String payload;
+
+    private ObjectMapper mapper;
+
+    private Object value;
+
+    private JavaType type;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = switch (format) {
+            case "json" -> new ObjectMapper();
+            case "smile" -> new SmileMapper();
+            case "cbor" -> new CBORMapper();
+            default -> throw new IllegalArgumentException(format);
+        };
+        mapper.setFilterProvider(FieldSelection.defaultFilters());
+        switch (payload) {
+            case "owner" -> {
+                value = owner(10, 5);
+                type = mapper.constructType(OwnerDetails.class);
+            }
+            case "visits" -> {
+                value = visitsOfPets(10, 5);
+                type = mapper.constructType(Visits.class);
+            }
+            case "vets" -> {
+                value = vets(50);
+                type = mapper.getTypeFactory().constructType(new TypeReference<List<Vet>>() {
+                });
+            }
+            default -> throw new IllegalArgumentException(payload);
+        }
+        bytes = mapper.writeValueAsBytes(value);
+        System.out.printf("%n%s as %s: %d bytes%n", payload, format, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public Object deserialize() throws Exception {
+        return mapper.readValue(bytes, type);
+    }
+
+    private static OwnerDetails owner(int pets, int visitsPerPet) {
+        List<PetDetails> petDetails = new ArrayList<>(pets);
+        for (int petId = 1; petId <= pets; petId++) {
+            petDetails.add(new PetDetails(petId, "pet-" + petId, "2020-03-0" + (petId % 9 + 1),
+                new PetType(petId % 2 == 0 ? "dog" : "cat"), visitsOf(petId, visitsPerPet)));
+        }
+        return new OwnerDetails(1, "George", "Franklin", "110 W. Liberty St.", "Madison", "6085551023", petDetails);
+    }
+
+    private static Visits visitsOfPets(int pets, int visitsPerPet) {
+        List<VisitDetails> visits = new ArrayList<>(pets * visitsPerPet);
+        for (int petId = 1; petId <= pets; petId++) {
+            visits.addAll(visitsOf(petId, visitsPerPet));
+        }
+        return new Visits(visits);
+    }
+
+    private static List<VisitDetails> visitsOf(int petId, int count) {
+        List<VisitDetails> visits = new ArrayList<>(count);
+        for (int v = 0; v < count; v++) {
+            visits.add(new VisitDetails(petId * 100 + v, petId, "2024-01-1" + v % 10, "rabies shot and yearly check-up"));
+        }
+        return visits;
+    }
+
+    private static List<Vet> vets(int count) {
+        List<Vet> vets = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            vets.add(new Vet(id, "James-" + id, "Carter", List.of(new Specialty(1, "radiology"), new Specialty(2, "surgery"))));
+        }
+        return vets;
+    }
+
+    /**
+     * Shape of the vets list returned by vets-service, which the gateway only routes.
+     */
+    public record Vet(int id, String firstName, String lastName, List<Specialty> specialties) {
+    }
+
+    public record Specialty(int id, String name) {
+    }
+}
@@ -0,0 +1,80 @@
+package org.springframework.samples.petclinic.api.system;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstanceStatsTest {
+
+    private static final long DECAY = TimeUnit.SECONDS.toNanos(10);
+
+    private final InstanceStats stats = new InstanceStats(
+        new DefaultServiceInstance("customers-1", "customers-service", "10.0.0.1", 8081, false), DECAY);
+
+    @Test
+    void shouldJumpToLatencyPeak() {
+        long now = System.nanoTime();
+        stats.observe(millis(10), now);
+        stats.observe(millis(500), now);
+
+        assertThat(stats.cost(now)).isEqualTo(millis(500));
+    }
+
+    @Test
+    void shouldLowerAverageGraduallyAfterPeak() {
+        long now = System.nanoTime();
+        stats.observe(millis(500), now);
+        stats.observe(millis(10), now + TimeUnit.SECONDS.toNanos(1));
+
+        assertThat(stats.cost(now + TimeUnit.SECONDS.toNanos(1))).isBetween((double) millis(10), (double) millis(500));
+    }
+
+    @Test
+    void shouldWeightLatencyByOutstandingRequests() {
+        long now = System.nanoTime();
+        stats.observe(millis(10), now);
+        stats.requestStarted();
+        stats.requestStarted();
+
+        assertThat(stats.cost(now)).isEqualTo(millis(30));
+    }
+
+    @Test
+    void shouldPenalizeBusyInstanceWithoutSamples() {
+        assertThat(stats.cost()).isZero();
+
+        stats.requestStarted();
+
+        assertThat(stats.cost()).isGreaterThan(millis(60_000));
+    }
+
+    @Test
+    void shouldDoubleEjectionTimeOnEachEjection() {
+        long now = System.nanoTime();
+
+        stats.eject(now, millis(100), millis(1_000));
+        assertThat(stats.isEjected(now + millis(99))).isTrue();
+        assertThat(stats.isEjected(now + millis(100))).isFalse();
+
+        stats.eject(now + millis(100), millis(100), millis(1_000));
+        assertThat(stats.isEjected(now + millis(299))).isTrue();
+        assertThat(stats.isEjected(now + millis(300))).isFalse();
+    }
+
+    @Test
+    void shouldForgetEjectionsAfterBehavingForMaxEjectionTime() {
+        long now = System.nanoTime();
+        stats.eject(now, millis(100), millis(1_000));
+
+        stats.eject(now + millis(2_000), millis(100), millis(1_000));
+
+        assertThat(stats.isEjected(now + millis(2_100))).isFalse();
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
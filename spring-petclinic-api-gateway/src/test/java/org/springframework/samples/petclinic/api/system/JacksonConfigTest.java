@@ -0,0 +1,57 @@
+package org.springframework.samples.petclinic.api.system;
+
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.samples.petclinic.api.dto.FieldSelection;
+import org.springframework.samples.petclinic.api.dto.VisitDetails;
+import org.springframework.samples.petclinic.api.dto.Visits;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JacksonConfigTest {
+
+    private final MockWebServer server = new MockWebServer();
+
+    private final CodecCustomizer smileCodecs = new JacksonConfig().smileCodecCustomizer(Jackson2ObjectMapperBuilder.json());
+
+    private final WebClient webClient = WebClient.builder()
+        .codecs(smileCodecs::customize)
+        .build();
+
+    @AfterEach
+    void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void shouldReadJsonAndSmileResponses() throws IOException {
+        Visits visits = new Visits(List.of(new VisitDetails(5, 1, "2018-11-15", "test visit")));
+        server.enqueue(new MockResponse()
+            .setHeader("Content-Type", "application/json")
+            .setBody("{\"items\":[{\"id\":5,\"petId\":1,\"date\":\"2018-11-15\",\"description\":\"test visit\"}]}"));
+        server.enqueue(new MockResponse()
+            .setHeader("Content-Type", JacksonConfig.APPLICATION_SMILE.toString())
+            .setBody(new Buffer().write(new SmileMapper().setFilterProvider(FieldSelection.defaultFilters()).writeValueAsBytes(visits))));
+
+        assertThat(getVisits()).isEqualTo(visits);
+        assertThat(getVisits()).isEqualTo(visits);
+    }
+
+    private Visits getVisits() {
+        return webClient.get()
+            .uri(server.url("/pets/visits").uri())
+            .retrieve()
+            .bodyToMono(Visits.class)
+            .block();
+    }
+}
@@ -0,0 +1,92 @@
+package org.springframework.samples.petclinic.api.system;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutlierDetectorTest {
+
+    private final ServiceInstance first = new DefaultServiceInstance("customers-1", "customers-service", "10.0.0.1", 8081, false);
+
+    private final ServiceInstance second = new DefaultServiceInstance("customers-2", "customers-service", "10.0.0.2", 8081, false);
+
+    private final ServiceInstance third = new DefaultServiceInstance("customers-3", "customers-service", "10.0.0.3", 8081, false);
+
+    private final LoadBalancingProperties properties = new LoadBalancingProperties(Duration.ofSeconds(10),
+        new LoadBalancingProperties.OutlierDetection(true, 3, 5, Duration.ofMillis(500), Duration.ofSeconds(30),
+            Duration.ofMinutes(5), 50));
+
+    private final LoadBalancerStats loadBalancerStats = new LoadBalancerStats(properties);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final OutlierDetector outlierDetector = new OutlierDetector(loadBalancerStats, properties, meterRegistry);
+
+    @Test
+    void shouldEjectInstanceAfterConsecutiveFailures() {
+        loadBalancerStats.stats(second);
+
+        for (int i = 0; i < 3; i++) {
+            outlierDetector.requestCompleted(first, millis(10), true);
+        }
+
+        assertThat(loadBalancerStats.stats(first).isEjected()).isTrue();
+        assertThat(meterRegistry.get("gateway.loadbalancer.ejections").tag("service", "customers-service").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void shouldResetFailuresOnSuccess() {
+        loadBalancerStats.stats(second);
+
+        outlierDetector.requestCompleted(first, millis(10), true);
+        outlierDetector.requestCompleted(first, millis(10), true);
+        outlierDetector.requestCompleted(first, millis(10), false);
+        outlierDetector.requestCompleted(first, millis(10), true);
+
+        assertThat(loadBalancerStats.stats(first).isEjected()).isFalse();
+    }
+
+    @Test
+    void shouldNotEjectMoreThanMaxEjectionPercent() {
+        for (int i = 0; i < 3; i++) {
+            outlierDetector.requestCompleted(first, millis(10), true);
+            outlierDetector.requestCompleted(second, millis(10), true);
+        }
+
+        assertThat(loadBalancerStats.stats(first).isEjected()).isTrue();
+        assertThat(loadBalancerStats.stats(second).isEjected()).isFalse();
+    }
+
+    @Test
+    void shouldCountLatencyOutliersAsFailures() {
+        loadBalancerStats.stats(second).observe(millis(20), System.nanoTime());
+        loadBalancerStats.stats(third).observe(millis(30), System.nanoTime());
+
+        for (int i = 0; i < 3; i++) {
+            outlierDetector.requestCompleted(first, millis(1_000), false);
+        }
+
+        assertThat(loadBalancerStats.stats(first).isEjected()).isTrue();
+    }
+
+    @Test
+    void shouldCountCancelledRequestsOnlyWhenSlow() {
+        loadBalancerStats.stats(second).observe(millis(20), System.nanoTime());
+        loadBalancerStats.stats(third).observe(millis(30), System.nanoTime());
+
+        outlierDetector.requestDiscarded(first, millis(10));
+        outlierDetector.requestDiscarded(first, millis(10_000));
+
+        assertThat(loadBalancerStats.stats(first).getConsecutiveFailures()).isEqualTo(1);
+    }
+
+    private static long millis(long millis) {
+        return Duration.ofMillis(millis).toNanos();
+    }
+}
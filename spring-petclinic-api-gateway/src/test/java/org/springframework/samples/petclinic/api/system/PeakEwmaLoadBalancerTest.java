@@ -0,0 +1,112 @@
+package org.springframework.samples.petclinic.api.system;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PeakEwmaLoadBalancerTest {
+
+    private final ServiceInstance fast = new DefaultServiceInstance("customers-1", "customers-service", "10.0.0.1", 8081, false);
+
+    private final ServiceInstance slow = new DefaultServiceInstance("customers-2", "customers-service", "10.0.0.2", 8081, false);
+
+    private final LoadBalancerStats loadBalancerStats = new LoadBalancerStats(new LoadBalancingProperties(Duration.ofSeconds(10), null));
+
+    @Test
+    void shouldPreferInstanceWithLowerLatency() {
+        loadBalancerStats.stats(fast).observe(Duration.ofMillis(5).toNanos(), System.nanoTime());
+        loadBalancerStats.stats(slow).observe(Duration.ofMillis(800).toNanos(), System.nanoTime());
+        PeakEwmaLoadBalancer loadBalancer = loadBalancer(List.of(fast, slow));
+
+        for (int i = 0; i < 20; i++) {
+            Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+            assertThat(response.getServer()).isEqualTo(fast);
+        }
+    }
+
+    @Test
+    void shouldPreferInstanceWithFewerOutstandingRequests() {
+        loadBalancerStats.stats(fast).observe(Duration.ofMillis(10).toNanos(), System.nanoTime());
+        loadBalancerStats.stats(slow).observe(Duration.ofMillis(10).toNanos(), System.nanoTime());
+        for (int i = 0; i < 5; i++) {
+            loadBalancerStats.stats(fast).requestStarted();
+        }
+
+        assertThat(loadBalancer(List.of(fast, slow)).choose(List.of(fast, slow)).getServer()).isEqualTo(slow);
+    }
+
+    @Test
+    void shouldSendHedgeToAnotherInstance() {
+        ServiceInstance third = new DefaultServiceInstance("customers-3", "customers-service", "10.0.0.3", 8081, false);
+        loadBalancerStats.stats(slow).observe(Duration.ofMillis(800).toNanos(), System.nanoTime());
+        List<ServiceInstance> instances = List.of(fast, slow, third);
+        PeakEwmaLoadBalancer loadBalancer = loadBalancer(instances);
+        HedgedRequest hedgedRequest = new HedgedRequest();
+
+        ServiceInstance first = loadBalancer.choose(instances, hedgedRequest).getServer();
+        ServiceInstance hedge = loadBalancer.choose(instances, hedgedRequest).getServer();
+
+        assertThat(hedge).isNotEqualTo(first);
+        assertThat(hedge).isNotEqualTo(slow);
+    }
+
+    @Test
+    void shouldSkipEjectedInstances() {
+        loadBalancerStats.stats(fast).observe(Duration.ofMillis(5).toNanos(), System.nanoTime());
+        loadBalancerStats.stats(slow).observe(Duration.ofMillis(800).toNanos(), System.nanoTime());
+        loadBalancerStats.stats(fast).eject(System.nanoTime(), Duration.ofMinutes(1).toNanos(), Duration.ofMinutes(5).toNanos());
+        PeakEwmaLoadBalancer loadBalancer = loadBalancer(List.of(fast, slow));
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(loadBalancer.choose(List.of(fast, slow), null).getServer()).isEqualTo(slow);
+        }
+    }
+
+    @Test
+    void shouldUseEjectedInstancesWhenNoOtherIsLeft() {
+        loadBalancerStats.stats(fast).eject(System.nanoTime(), Duration.ofMinutes(1).toNanos(), Duration.ofMinutes(5).toNanos());
+
+        assertThat(loadBalancer(List.of(fast)).choose(List.of(fast), null).getServer()).isEqualTo(fast);
+    }
+
+    @Test
+    void shouldReturnEmptyResponseWithoutInstances() {
+        Response<ServiceInstance> response = loadBalancer(List.of()).choose(new DefaultRequest<>()).block();
+
+        assertThat(response.hasServer()).isFalse();
+    }
+
+    @Test
+    void shouldForgetInstancesThatLeftTheService() {
+        loadBalancerStats.stats(fast).observe(Duration.ofMillis(5).toNanos(), System.nanoTime());
+        loadBalancerStats.stats(slow).eject(System.nanoTime(), Duration.ofMinutes(1).toNanos(), Duration.ofMinutes(5).toNanos());
+
+        loadBalancer(List.of(fast)).choose(new DefaultRequest<>()).block();
+
+        assertThat(loadBalancerStats.stats("customers-service"))
+            .extracting(InstanceStats::getInstanceId)
+            .containsExactly("customers-1");
+    }
+
+    @SuppressWarnings("unchecked")
+    private PeakEwmaLoadBalancer loadBalancer(List<ServiceInstance> instances) {
+        ServiceInstanceListSupplier supplier = ServiceInstanceListSuppliers.from("customers-service",
+            instances.toArray(ServiceInstance[]::new));
+        ObjectProvider<ServiceInstanceListSupplier> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(supplier);
+        return new PeakEwmaLoadBalancer(provider, "customers-service", loadBalancerStats);
+    }
+}
@@ -0,0 +1,68 @@
+package org.springframework.samples.petclinic.api.system;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestDeadlineTest {
+
+    private final ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://customers-service/owners/1")).build();
+
+    private final AtomicReference<ClientRequest> sent = new AtomicReference<>();
+
+    private final ExchangeFunction exchange = request -> {
+        sent.set(request);
+        return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+    };
+
+    @Test
+    void shouldSendTimeLeftToServices() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofSeconds(2));
+
+        RequestDeadline.propagation().filter(request, exchange)
+            .contextWrite(deadline::addTo)
+            .block();
+
+        assertThat(Long.parseLong(sent.get().headers().getFirst(RequestDeadline.HEADER))).isBetween(1L, 2000L);
+    }
+
+    @Test
+    void shouldNotCallServicesAfterDeadline() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ZERO);
+
+        Mono<ClientResponse> response = RequestDeadline.propagation().filter(request, exchange)
+            .contextWrite(deadline::addTo);
+
+        assertThatThrownBy(response::block).hasCauseInstanceOf(TimeoutException.class);
+        assertThat(sent.get()).isNull();
+    }
+
+    @Test
+    void shouldSendNoDeadlineOutsideRequests() {
+        RequestDeadline.propagation().filter(request, exchange).block();
+
+        assertThat(sent.get().headers().containsKey(RequestDeadline.HEADER)).isFalse();
+    }
+
+    @Test
+    void shouldKeepSoonerDeadlineOfCaller() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(RequestDeadline.HEADER, "500");
+
+        assertThat(RequestDeadline.of(headers, Duration.ofSeconds(10)).remainingMillis()).isLessThanOrEqualTo(500);
+        assertThat(RequestDeadline.of(new HttpHeaders(), Duration.ofSeconds(10)).remainingMillis()).isGreaterThan(500);
+    }
+}
@@ -0,0 +1,66 @@
+package org.springframework.samples.petclinic.api.system;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@WebFluxTest(useDefaultFilters = false)
+@Import(StaticResourcesConfig.class)
+class StaticResourcesConfigTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    private String bundle;
+
+    @BeforeEach
+    void findBundle() throws IOException {
+        Resource[] bundles = new PathMatchingResourcePatternResolver().getResources("classpath:/assets/app.*.js");
+        assertThat(bundles).as("bundle generated by the build").hasSize(1);
+        bundle = "/assets/" + bundles[0].getFilename();
+    }
+
+    @Test
+    void shouldServePrecompressedBundle() {
+        client.get()
+            .uri(bundle)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .expectHeader().valueEquals(HttpHeaders.VARY, "Accept-Encoding")
+            .expectHeader().contentType("text/javascript")
+            .expectHeader().cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable());
+    }
+
+    @Test
+    void shouldServeIdentityBundleWithStrongEtag() {
+        String etag = client.get()
+            .uri(bundle)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+            .returnResult(String.class)
+            .getResponseHeaders()
+            .getETag();
+
+        assertThat(etag).startsWith("\"app.");
+        client.get()
+            .uri(bundle)
+            .header(HttpHeaders.IF_NONE_MATCH, etag)
+            .exchange()
+            .expectStatus().isNotModified();
+    }
+}
@@ -0,0 +1,128 @@
+package org.springframework.samples.petclinic.api.system;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WarmUpRunnerTest {
+
+    private final MockWebServer gateway = new MockWebServer();
+
+    private final ApplicationInfoManager applicationInfoManager = mock(ApplicationInfoManager.class);
+
+    private final DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+
+    private final Map<String, Integer> requests = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void shutdown() throws IOException {
+        gateway.shutdown();
+    }
+
+    @Test
+    void shouldReplayPathsOfReachableServicesThenReportUp() {
+        gateway.setDispatcher(dispatcher(200));
+        // vets-service is not registered
+        registerServices("customers-service", "visits-service");
+
+        runner(environment()).run(new DefaultApplicationArguments());
+
+        assertThat(requests).containsEntry("/api/gateway/owners/1", 6).doesNotContainKey("/api/vet/vets");
+        verify(applicationInfoManager).setInstanceStatus(InstanceInfo.InstanceStatus.UP);
+    }
+
+    @Test
+    void shouldSkipServicesFailingTheirHealthCheck() {
+        gateway.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                requests.merge(request.getPath(), 1, Integer::sum);
+                return new MockResponse().setResponseCode("/actuator/health".equals(request.getPath()) ? 503 : 200);
+            }
+        });
+        registerServices("customers-service", "visits-service", "vets-service");
+
+        runner(environment()).run(new DefaultApplicationArguments());
+
+        assertThat(requests).containsOnlyKeys("/actuator/health");
+        verify(applicationInfoManager).setInstanceStatus(InstanceInfo.InstanceStatus.UP);
+    }
+
+    @Test
+    void shouldStopAtFirstFailedRequest() {
+        gateway.setDispatcher(dispatcher(503));
+        registerServices("customers-service", "visits-service", "vets-service");
+
+        runner(environment()).run(new DefaultApplicationArguments());
+
+        // at most the requests sent concurrently with the first one to fail
+        assertThat(requests.getOrDefault("/api/gateway/owners/1", 0) + requests.getOrDefault("/api/vet/vets", 0))
+            .isLessThanOrEqualTo(2);
+        verify(applicationInfoManager).setInstanceStatus(InstanceInfo.InstanceStatus.UP);
+    }
+
+    @Test
+    void shouldReportUpWithoutWebServer() {
+        runner(new MockEnvironment()).run(new DefaultApplicationArguments());
+
+        assertThat(gateway.getRequestCount()).isZero();
+        verify(applicationInfoManager).setInstanceStatus(InstanceInfo.InstanceStatus.UP);
+    }
+
+    private Dispatcher dispatcher(int status) {
+        return new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                requests.merge(request.getPath(), 1, Integer::sum);
+                return new MockResponse().setResponseCode("/actuator/health".equals(request.getPath()) ? 200 : status);
+            }
+        };
+    }
+
+    private void registerServices(String... serviceIds) {
+        for (String serviceId : serviceIds) {
+            when(discoveryClient.getInstances(serviceId)).thenReturn(List.of(
+                new DefaultServiceInstance(serviceId + "-1", serviceId, "localhost", gateway.getPort(), false)));
+        }
+    }
+
+    private MockEnvironment environment() {
+        return new MockEnvironment().withProperty("local.server.port", Integer.toString(gateway.getPort()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private WarmUpRunner runner(MockEnvironment environment) {
+        ObjectProvider<ApplicationInfoManager> provider = mock(ObjectProvider.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<ApplicationInfoManager>>getArgument(0).accept(applicationInfoManager);
+            return null;
+        }).when(provider).ifAvailable(any());
+        WarmUpProperties properties = new WarmUpProperties(true, 6, 2, Duration.ofSeconds(5),
+            List.of("/api/gateway/owners/1", "/api/vet/vets"), Duration.ofSeconds(30));
+        return new WarmUpRunner(properties, environment, provider, discoveryClient);
+    }
+}
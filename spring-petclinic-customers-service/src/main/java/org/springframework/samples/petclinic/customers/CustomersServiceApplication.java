@@ -17,13 +17,17 @@ package org.springframework.samples.petclinic.customers;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.samples.petclinic.customers.config.ImportProperties;
+import org.springframework.samples.petclinic.customers.config.WarmUpProperties;
 
 /**
  * @author Maciej Szarlinski
  */
 @EnableDiscoveryClient
 @SpringBootApplication
+@EnableConfigurationProperties({WarmUpProperties.class, ImportProperties.class})
 public class CustomersServiceApplication {
 
 	public static void main(String[] args) {
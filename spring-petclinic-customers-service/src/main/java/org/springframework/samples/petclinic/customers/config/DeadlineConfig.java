@@ -0,0 +1,45 @@
+package org.springframework.samples.petclinic.customers.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.util.OptionalLong;
+
+/**
+ * Bounds the transactions of a request by its deadline, see {@link RequestDeadlineFilter}. Hibernate applies the
+ * transaction timeout to every JDBC statement as a query timeout, so the database stops working on a query the
+ * caller is no longer waiting for.
+ */
+@Configuration
+public class DeadlineConfig {
+
+    @Bean
+    JpaTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager() {
+            @Override
+            protected int determineTimeout(TransactionDefinition definition) {
+                int timeout = super.determineTimeout(definition);
+                OptionalLong remaining = RequestDeadlineFilter.remainingMillis();
+                return remaining.isPresent() ? timeoutInSeconds(timeout, remaining.getAsLong()) : timeout;
+            }
+        };
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    /**
+     * The transaction timeout, in whole seconds as JDBC query timeouts are, that ends the transaction by the deadline.
+     */
+    static int timeoutInSeconds(int timeout, long remainingMillis) {
+        if (remainingMillis <= 0) {
+            throw new TransactionTimedOutException("Request deadline exceeded");
+        }
+        int remainingSeconds = (int) Math.min(Integer.MAX_VALUE, (remainingMillis + 999) / 1000);
+        return timeout == TransactionDefinition.TIMEOUT_DEFAULT ? remainingSeconds : Math.min(timeout, remainingSeconds);
+    }
+}
@@ -0,0 +1,18 @@
+package org.springframework.samples.petclinic.customers.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Bulk import of owners and their pets, see {@code POST /owners/import}.
+ *
+ * @param chunkSize number of owners saved per transaction, after which the persistence context is flushed and
+ *                  cleared
+ * @param maxErrors number of failed rows reported in detail; further failures are only counted
+ */
+@ConfigurationProperties(prefix = "petclinic.import")
+public record ImportProperties(
+    @DefaultValue("500") int chunkSize,
+    @DefaultValue("100") int maxErrors
+) {
+}
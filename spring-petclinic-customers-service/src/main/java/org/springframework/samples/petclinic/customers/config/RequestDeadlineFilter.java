@@ -0,0 +1,68 @@
+package org.springframework.samples.petclinic.customers.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Honours the deadline propagated by the api-gateway in the {@value #HEADER} header, the time left in milliseconds
+ * before the caller gives up. Requests that are already expired are rejected before being dispatched; the others
+ * expose their deadline to the request thread, see {@link DeadlineConfig}.
+ */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        Long timeout = parseTimeout(request.getHeader(HEADER));
+        if (timeout == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (timeout <= 0) {
+            response.sendError(HttpStatus.GATEWAY_TIMEOUT.value(), "Request deadline exceeded");
+            return;
+        }
+        DEADLINE.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            DEADLINE.remove();
+        }
+    }
+
+    /**
+     * Time left before the deadline of the current request, empty when the request has no deadline.
+     */
+    static OptionalLong remainingMillis() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    private static Long parseTimeout(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
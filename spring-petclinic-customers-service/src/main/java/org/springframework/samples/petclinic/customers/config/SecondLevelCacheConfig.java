@@ -0,0 +1,50 @@
+package org.springframework.samples.petclinic.customers.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Hibernate second-level and query cache of owners, pets and pet types, enabled by the {@code l2cache} profile. The
+ * regions are Caffeine caches, bounded in size by {@code hibernate-cache.conf}, whose hits and misses are published
+ * to Micrometer as {@code cache.gets}.
+ */
+@Configuration
+@Profile("l2cache")
+public class SecondLevelCacheConfig {
+
+    static final List<String> REGIONS = List.of(
+        "org.springframework.samples.petclinic.customers.model.Owner",
+        "org.springframework.samples.petclinic.customers.model.Owner.pets",
+        "org.springframework.samples.petclinic.customers.model.Pet",
+        "org.springframework.samples.petclinic.customers.model.PetType",
+        "default-query-results-region",
+        "default-update-timestamps-region");
+
+    @Bean(destroyMethod = "close")
+    CacheManager secondLevelCacheManager() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(URI.create("classpath:hibernate-cache.conf"), getClass().getClassLoader());
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    @Bean
+    MeterBinder secondLevelCacheMetrics(CacheManager secondLevelCacheManager) {
+        return registry -> REGIONS.forEach(region ->
+            JCacheMetrics.monitor(registry, secondLevelCacheManager.getCache(region)));
+    }
+}
@@ -0,0 +1,26 @@
+package org.springframework.samples.petclinic.customers.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Warm-up of the service before it reports itself ready, see {@link WarmUpRunner}.
+ *
+ * @param enabled     whether the service is warmed up
+ * @param requests    number of requests replayed against the service's own endpoints
+ * @param concurrency number of requests replayed at the same time
+ * @param timeout     time after which the service reports itself ready even if the warm-up has not finished
+ * @param paths       the request mix: GET requests replayed in turn
+ */
+@ConfigurationProperties(prefix = "petclinic.warm-up")
+public record WarmUpProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("500") int requests,
+    @DefaultValue("4") int concurrency,
+    @DefaultValue("30s") Duration timeout,
+    @DefaultValue({"/owners/1", "/owners/2", "/owners/search?size=20", "/petTypes", "/owners/1/pets/1"}) List<String> paths
+) {
+}
@@ -0,0 +1,132 @@
+package org.springframework.samples.petclinic.customers.config;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Warms the service up before it takes traffic: fills the database connection pool, then replays a synthetic request
+ * mix against the service's own endpoints so that the JIT compiles the hot paths. The warm-up stops at the first
+ * failed request.
+ * <p>
+ * Application runners complete before Spring Boot switches the readiness state to {@code ACCEPTING_TRAFFIC}, so the
+ * readiness probe fails during the warm-up. The instance registers in Eureka as {@code STARTING}
+ * ({@code eureka.instance.initial-status}) and is only switched {@code UP} here, once warmed up.
+ */
+@Component
+class WarmUpRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    private final WarmUpProperties properties;
+
+    private final Environment environment;
+
+    private final DataSource dataSource;
+
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+
+    WarmUpRunner(WarmUpProperties properties, Environment environment, DataSource dataSource,
+                 ObjectProvider<ApplicationInfoManager> applicationInfoManager) {
+        this.properties = properties;
+        this.environment = environment;
+        this.dataSource = dataSource;
+        this.applicationInfoManager = applicationInfoManager;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        try {
+            if (properties.enabled()) {
+                fillConnectionPool();
+                replayRequests();
+            }
+        } finally {
+            applicationInfoManager.ifAvailable(manager -> manager.setInstanceStatus(InstanceInfo.InstanceStatus.UP));
+        }
+    }
+
+    /**
+     * Opens the minimum number of idle connections at once, rather than on the first requests.
+     */
+    private void fillConnectionPool() {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return;
+            }
+            int minimumIdle = dataSource.unwrap(HikariDataSource.class).getMinimumIdle();
+            for (int i = 0; i < minimumIdle; i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            log.warn("Could not fill the connection pool", e);
+        } finally {
+            connections.forEach(WarmUpRunner::close);
+        }
+    }
+
+    private void replayRequests() throws InterruptedException {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        if (port == null || properties.paths().isEmpty()) {
+            // no web server, e.g. in tests
+            return;
+        }
+        RestClient client = RestClient.create("http://localhost:" + port);
+        AtomicBoolean failed = new AtomicBoolean();
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(properties.concurrency());
+        for (int i = 0; i < properties.requests(); i++) {
+            String path = properties.paths().get(i % properties.paths().size());
+            executor.execute(() -> {
+                if (failed.get()) {
+                    return;
+                }
+                try {
+                    client.get().uri(path).retrieve().toBodilessEntity();
+                } catch (RestClientException e) {
+                    if (failed.compareAndSet(false, true)) {
+                        log.info("Stopped the warm-up at the first failed request: {}", e.getMessage());
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(properties.timeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+            log.warn("Warm-up did not finish within {}", properties.timeout());
+            return;
+        }
+        if (!failed.get()) {
+            log.info("Warmed up with {} requests in {} ms", properties.requests(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("Could not release a warm-up connection", e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.springframework.samples.petclinic.customers.model;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Partial update of an owner, see {@link OwnerUpdateRepository}: {@code null} fields are left unchanged.
+ */
+public record OwnerChanges(@Pattern(regexp = ".*\\S.*", message = "must not be blank") String firstName,
+                           @Pattern(regexp = ".*\\S.*", message = "must not be blank") String lastName,
+                           @Pattern(regexp = ".*\\S.*", message = "must not be blank") String address,
+                           @Pattern(regexp = ".*\\S.*", message = "must not be blank") String city,
+                           @Digits(fraction = 0, integer = 12) String telephone
+) {
+}
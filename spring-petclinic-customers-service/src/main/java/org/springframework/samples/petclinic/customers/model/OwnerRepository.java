@@ -15,7 +15,15 @@
  */
 package org.springframework.samples.petclinic.customers.model;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository class for <code>Owner</code> domain objects All method names are compliant with Spring Data naming
@@ -27,4 +35,56 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * @author Michael Isvy
  * @author Maciej Szarlinski
  */
-public interface OwnerRepository extends JpaRepository<Owner, Integer> { }
+public interface OwnerRepository extends JpaRepository<Owner, Integer>, OwnerUpdateRepository,
+    OwnerSearchRepository {
+
+    /**
+     * Owners left-joined to their pets and pet types in one statement, read into {@link OwnerRow}s rather than
+     * managed entities.
+     */
+    String VIEW_QUERY = """
+        SELECT new org.springframework.samples.petclinic.customers.model.OwnerRow(
+            owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone,
+            pet.id, pet.name, pet.birthDate, type.id, type.name)
+        FROM Owner owner LEFT JOIN owner.pets pet LEFT JOIN pet.type type
+        """;
+
+    @Query(VIEW_QUERY + "WHERE owner.id = :ownerId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<OwnerRow> findRowsById(int ownerId);
+
+    /**
+     * Not cached: the whole table would be held as a single query cache entry, unbounded by the size of the region
+     * and thrown away by any write.
+     */
+    @Query(VIEW_QUERY + "ORDER BY owner.id")
+    List<OwnerRow> findAllRows();
+
+    /**
+     * Read-only owner with their pets, read with a single statement however many pets the owner has. With the
+     * {@code l2cache} profile, the rows are served from the query cache until one of the tables changes.
+     */
+    default Optional<OwnerView> findViewById(int ownerId) {
+        return OwnerView.of(findRowsById(ownerId)).stream().findFirst();
+    }
+
+    /**
+     * Read-only owners with their pets, read with a single statement.
+     */
+    default List<OwnerView> findAllViews() {
+        return OwnerView.of(findAllRows());
+    }
+
+    /**
+     * Every owner with their pets, read from a database cursor rather than loaded at once. Must be consumed within a
+     * transaction, and the owners detached once used to keep the persistence context from growing.
+     * <p>
+     * With MySQL, the fetch size is only honoured when {@code useCursorFetch=true} is set on the JDBC URL.
+     */
+    @Query("SELECT owner FROM Owner owner LEFT JOIN FETCH owner.pets ORDER BY owner.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Owner> streamAllWithPets();
+}
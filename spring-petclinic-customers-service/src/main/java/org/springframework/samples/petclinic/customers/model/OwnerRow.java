@@ -0,0 +1,12 @@
+package org.springframework.samples.petclinic.customers.model;
+
+import java.util.Date;
+
+/**
+ * One row of the owners left-joined to their pets and pet types, see {@link OwnerRepository#findViewById}. The pet
+ * columns are {@code null} for an owner without pets.
+ */
+public record OwnerRow(Integer ownerId, String firstName, String lastName, String address, String city,
+                       String telephone, Integer petId, String petName, Date birthDate, Integer typeId,
+                       String typeName) {
+}
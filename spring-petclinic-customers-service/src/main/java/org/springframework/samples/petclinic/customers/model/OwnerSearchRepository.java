@@ -0,0 +1,28 @@
+package org.springframework.samples.petclinic.customers.model;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Fragment of {@link OwnerRepository} searching owners page by page, without loading them.
+ */
+public interface OwnerSearchRepository {
+
+    /**
+     * Keyset-paginated search: reads the owners after the given position, ordered by last name then id, so that the
+     * cost of a page does not depend on how many pages come before it. Both filters ignore case through the
+     * case-insensitive collation of their columns, which keeps them on the indexes.
+     * <p>
+     * A page is read with two statements whatever its size: the keyset query only reads the ids and last names of the
+     * page, then the owners of the page are read with their pets by {@link OwnerRepository#VIEW_QUERY}.
+     *
+     * @param lastNamePrefix prefix of the last name, or {@code null}
+     * @param city           city, or {@code null}
+     * @param position       where the previous page ended, {@link KeysetScrollPosition#keyset()} for the first page
+     * @param size           maximum number of owners of the page
+     * @throws org.springframework.dao.InvalidDataAccessApiUsageException when the position scrolls backward or lacks the last name and id keys
+     */
+    @Transactional(readOnly = true)
+    Window<OwnerView> search(String lastNamePrefix, String city, KeysetScrollPosition position, int size);
+}
@@ -0,0 +1,83 @@
+package org.springframework.samples.petclinic.customers.model;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class OwnerSearchRepositoryImpl implements OwnerSearchRepository {
+
+    private final EntityManager entityManager;
+
+    OwnerSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Window<OwnerView> search(String lastNamePrefix, String city, KeysetScrollPosition position, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Owner> owner = query.from(Owner.class);
+        Path<Integer> id = owner.get("id");
+        Path<String> lastName = owner.get("lastName");
+        List<Predicate> filters = new ArrayList<>();
+        if (StringUtils.hasText(lastNamePrefix)) {
+            String pattern = lastNamePrefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            filters.add(cb.like(lastName, pattern, '\\'));
+        }
+        if (StringUtils.hasText(city)) {
+            filters.add(cb.equal(owner.get("city"), city));
+        }
+        if (!position.isInitial()) {
+            filters.add(after(cb, lastName, id, position));
+        }
+        // the last name index holds the id as well, so the keys of a page are read straight from the index
+        query.multiselect(id, lastName)
+            .where(filters.toArray(Predicate[]::new))
+            .orderBy(cb.asc(lastName), cb.asc(id));
+        // one more owner than the page holds tells whether there is a next page
+        List<Tuple> result = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean hasNext = result.size() > size;
+        List<Tuple> keys = hasNext ? result.subList(0, size) : result;
+        if (keys.isEmpty()) {
+            return Window.from(List.of(), index -> position, false);
+        }
+        List<Integer> ids = keys.stream().map(key -> key.get(0, Integer.class)).toList();
+        List<OwnerRow> rows = entityManager.createQuery(OwnerRepository.VIEW_QUERY
+                + "WHERE owner.id IN :ownerIds ORDER BY owner.lastName, owner.id", OwnerRow.class)
+            .setParameter("ownerIds", ids)
+            .getResultList();
+        return Window.from(OwnerView.of(rows), index -> positionOf(keys.get(index)), hasNext);
+    }
+
+    private static Predicate after(CriteriaBuilder cb, Path<String> lastName, Path<Integer> id,
+                                   KeysetScrollPosition position) {
+        Object lastNameKey = position.getKeys().get("lastName");
+        Object idKey = position.getKeys().get("id");
+        if (position.scrollsBackward() || !(lastNameKey instanceof String previousLastName)
+            || !(idKey instanceof Integer previousId)) {
+            throw new IllegalArgumentException("Unsupported position " + position);
+        }
+        return cb.or(cb.greaterThan(lastName, previousLastName),
+            cb.and(cb.equal(lastName, previousLastName), cb.greaterThan(id, previousId)));
+    }
+
+    private static KeysetScrollPosition positionOf(Tuple key) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("lastName", key.get(1, String.class));
+        keys.put("id", key.get(0, Integer.class));
+        return ScrollPosition.forward(keys);
+    }
+}
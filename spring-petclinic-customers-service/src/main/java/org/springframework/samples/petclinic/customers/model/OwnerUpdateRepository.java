@@ -0,0 +1,17 @@
+package org.springframework.samples.petclinic.customers.model;
+
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Fragment of {@link OwnerRepository} updating owners in place, without loading them.
+ */
+public interface OwnerUpdateRepository {
+
+    /**
+     * Write the changed columns of an owner, and only them, with a single {@code UPDATE}.
+     *
+     * @return whether the owner exists
+     */
+    @Transactional
+    boolean update(int ownerId, OwnerChanges changes);
+}
@@ -0,0 +1,43 @@
+package org.springframework.samples.petclinic.customers.model;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+
+class OwnerUpdateRepositoryImpl implements OwnerUpdateRepository {
+
+    private final EntityManager entityManager;
+
+    OwnerUpdateRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public boolean update(int ownerId, OwnerChanges changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Owner> update = cb.createCriteriaUpdate(Owner.class);
+        Root<Owner> owner = update.from(Owner.class);
+        boolean changed = set(update, owner, "firstName", changes.firstName())
+            | set(update, owner, "lastName", changes.lastName())
+            | set(update, owner, "address", changes.address())
+            | set(update, owner, "city", changes.city())
+            | set(update, owner, "telephone", changes.telephone());
+        if (!changed) {
+            // nothing to write, but the caller still needs to know whether the owner exists
+            return entityManager.createQuery("SELECT count(owner) FROM Owner owner WHERE owner.id = :ownerId", Long.class)
+                .setParameter("ownerId", ownerId)
+                .getSingleResult() > 0;
+        }
+        update.where(cb.equal(owner.get("id"), ownerId));
+        return entityManager.createQuery(update).executeUpdate() > 0;
+    }
+
+    private static boolean set(CriteriaUpdate<Owner> update, Root<Owner> owner, String attribute, String value) {
+        if (value == null) {
+            return false;
+        }
+        update.set(owner.<String>get(attribute), value);
+        return true;
+    }
+}
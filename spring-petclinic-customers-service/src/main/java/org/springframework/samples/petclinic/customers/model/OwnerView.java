@@ -0,0 +1,49 @@
+package org.springframework.samples.petclinic.customers.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of an owner and their pets, serialized like {@link Owner}. Unlike the entity, it is built from a
+ * single projection query and never enters the persistence context.
+ */
+public record OwnerView(Integer id, String firstName, String lastName, String address, String city, String telephone,
+                        List<PetView> pets) {
+
+    private static final Comparator<PetView> PET_ORDER =
+        Comparator.comparing(PetView::name, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+    public record PetView(Integer id, String name, Date birthDate, PetTypeView type) {
+    }
+
+    public record PetTypeView(Integer id, String name) {
+    }
+
+    /**
+     * Groups rows of the same owner, keeping the owners in the order of their first row and sorting their pets by
+     * name like {@link Owner#getPets()}.
+     */
+    static List<OwnerView> of(List<OwnerRow> rows) {
+        Map<Integer, OwnerView> owners = new LinkedHashMap<>();
+        for (OwnerRow row : rows) {
+            OwnerView owner = owners.computeIfAbsent(row.ownerId(), id -> new OwnerView(id, row.firstName(),
+                row.lastName(), row.address(), row.city(), row.telephone(), new ArrayList<>()));
+            if (row.petId() != null) {
+                owner.pets().add(new PetView(row.petId(), row.petName(), row.birthDate(),
+                    row.typeId() == null ? null : new PetTypeView(row.typeId(), row.typeName())));
+            }
+        }
+        return owners.values().stream()
+            .map(owner -> {
+                List<PetView> pets = new ArrayList<>(owner.pets());
+                pets.sort(PET_ORDER);
+                return new OwnerView(owner.id(), owner.firstName(), owner.lastName(), owner.address(), owner.city(),
+                    owner.telephone(), List.copyOf(pets));
+            })
+            .toList();
+    }
+}
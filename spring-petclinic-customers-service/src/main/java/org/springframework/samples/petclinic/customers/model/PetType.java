@@ -16,6 +16,8 @@
 package org.springframework.samples.petclinic.customers.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * @author Juergen Hoeller
@@ -23,6 +25,8 @@ import jakarta.persistence.*;
  * Can be Cat, Dog, Hamster...
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "types")
 public class PetType {
 
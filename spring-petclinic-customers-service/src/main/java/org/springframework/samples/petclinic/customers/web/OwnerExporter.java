@@ -0,0 +1,58 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.springframework.samples.petclinic.customers.model.Owner;
+import org.springframework.samples.petclinic.customers.model.OwnerRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes every owner as newline-delimited JSON in constant memory: owners are read from a database cursor, written
+ * as soon as they are read and then detached, so that neither the result set nor the persistence context grows with
+ * the number of owners.
+ */
+@Component
+class OwnerExporter {
+
+    private final OwnerRepository ownerRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectWriter ownerWriter;
+
+    OwnerExporter(OwnerRepository ownerRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.ownerRepository = ownerRepository;
+        this.entityManager = entityManager;
+        this.ownerWriter = objectMapper.writerFor(Owner.class);
+    }
+
+    /**
+     * @return the number of owners written
+     */
+    @Transactional(readOnly = true)
+    public long export(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<Owner> owners = ownerRepository.streamAllWithPets();
+             JsonGenerator generator = ownerWriter.createGenerator(out)) {
+            for (Iterator<Owner> it = owners.iterator(); it.hasNext(); count++) {
+                Owner owner = it.next();
+                ownerWriter.writeValue(generator, owner);
+                generator.writeRaw('\n');
+                // cascades to the pets
+                entityManager.detach(owner);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,31 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One line of a bulk import: an owner with their pets.
+ */
+record OwnerImportRequest(@NotBlank String firstName,
+                          @NotBlank String lastName,
+                          @NotBlank String address,
+                          @NotBlank String city,
+                          @NotBlank
+                          @Digits(fraction = 0, integer = 12)
+                          String telephone,
+                          List<@NotNull @Valid PetImportRequest> pets
+) {
+
+    record PetImportRequest(@NotBlank String name,
+                            @JsonFormat(pattern = "yyyy-MM-dd")
+                            Date birthDate,
+                            int typeId
+    ) {
+    }
+}
@@ -0,0 +1,222 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.samples.petclinic.customers.config.ImportProperties;
+import org.springframework.samples.petclinic.customers.model.Owner;
+import org.springframework.samples.petclinic.customers.model.Pet;
+import org.springframework.samples.petclinic.customers.web.OwnerImportRequest.PetImportRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports owners and their pets from newline-delimited JSON, one {@link OwnerImportRequest} per line, in constant
+ * memory: lines are read as they arrive and saved in chunks of {@link ImportProperties#chunkSize()} owners, one
+ * transaction per chunk, flushing and clearing the persistence context after each.
+ * <p>
+ * Owners and pets take their ids from pooled sequences and are inserted in JDBC batches. A line that cannot be
+ * parsed or is invalid is reported and skipped. When saving a chunk fails, its owners are saved again one by one so
+ * that only the offending lines are reported.
+ */
+@Component
+class OwnerImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(OwnerImporter.class);
+
+    private final ObjectReader requestReader;
+
+    private final Validator validator;
+
+    private final PetTypeCache petTypeCache;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ImportProperties properties;
+
+    OwnerImporter(ObjectMapper objectMapper, Validator validator, PetTypeCache petTypeCache,
+                  EntityManager entityManager, PlatformTransactionManager transactionManager,
+                  ImportProperties properties) {
+        this.requestReader = objectMapper.readerFor(OwnerImportRequest.class);
+        this.validator = validator;
+        this.petTypeCache = petTypeCache;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    ImportResult importOwners(InputStream in) throws IOException {
+        Report report = new Report(properties.maxErrors());
+        List<Line> chunk = new ArrayList<>(properties.chunkSize());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        int number = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            number++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                chunk.add(new Line(number, parse(line)));
+            } catch (InvalidLineException e) {
+                report.failed(number, e.getMessage());
+                continue;
+            } catch (RuntimeException e) {
+                // whatever the line holds, it must not fail the import after the chunks already saved
+                log.debug("Failed to read line {}", number, e);
+                report.failed(number, "Invalid line: " + e.getMessage());
+                continue;
+            }
+            if (chunk.size() == properties.chunkSize()) {
+                save(chunk, report);
+                chunk.clear();
+            }
+        }
+        save(chunk, report);
+        ImportResult result = report.result();
+        log.info("Imported {} owners, {} lines failed", result.imported(), result.failed());
+        return result;
+    }
+
+    private OwnerImportRequest parse(String line) {
+        OwnerImportRequest request;
+        try {
+            request = requestReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new InvalidLineException(e.getOriginalMessage());
+        }
+        Set<ConstraintViolation<OwnerImportRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new InvalidLineException(violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .collect(Collectors.joining(", ")));
+        }
+        if (request.pets() != null) {
+            for (PetImportRequest pet : request.pets()) {
+                if (petTypeCache.findById(pet.typeId()).isEmpty()) {
+                    throw new InvalidLineException("Unknown pet type " + pet.typeId());
+                }
+            }
+        }
+        return request;
+    }
+
+    private void save(List<Line> chunk, Report report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Line line : chunk) {
+                    entityManager.persist(toOwner(line));
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            report.imported(chunk.size());
+        } catch (PersistenceException | DataAccessException | TransactionException e) {
+            if (chunk.size() == 1) {
+                report.failed(chunk.get(0).number(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            } else {
+                chunk.forEach(line -> save(List.of(line), report));
+            }
+        }
+    }
+
+    private Owner toOwner(Line line) {
+        OwnerImportRequest request = line.request();
+        Owner owner = new Owner();
+        owner.setFirstName(request.firstName());
+        owner.setLastName(request.lastName());
+        owner.setAddress(request.address());
+        owner.setCity(request.city());
+        owner.setTelephone(request.telephone());
+        if (request.pets() != null) {
+            for (PetImportRequest petRequest : request.pets()) {
+                Pet pet = new Pet();
+                pet.setName(petRequest.name());
+                pet.setBirthDate(petRequest.birthDate());
+                pet.setType(petTypeCache.findById(petRequest.typeId()).orElseThrow());
+                owner.addPet(pet);
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * Outcome of an import.
+     *
+     * @param imported number of owners saved
+     * @param failed   number of lines skipped
+     * @param errors   why lines were skipped, for at most {@link ImportProperties#maxErrors()} lines
+     */
+    record ImportResult(int imported, int failed, List<LineError> errors) {
+    }
+
+    record LineError(int line, String message) {
+    }
+
+    private record Line(int number, OwnerImportRequest request) {
+    }
+
+    private static class Report {
+
+        private final int maxErrors;
+
+        private final List<LineError> errors = new ArrayList<>();
+
+        private int imported;
+
+        private int failed;
+
+        Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void imported(int count) {
+            imported += count;
+        }
+
+        void failed(int line, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new LineError(line, message));
+            }
+        }
+
+        ImportResult result() {
+            errors.sort(Comparator.comparingInt(LineError::line));
+            return new ImportResult(imported, failed, List.copyOf(errors));
+        }
+    }
+
+    private static class InvalidLineException extends RuntimeException {
+
+        InvalidLineException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.samples.petclinic.customers.model.OwnerView;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of owners, with the opaque cursor of the next page or {@code null} on the last one.
+ * <p>
+ * The cursor encodes the last name and id of the last owner of the page, see {@code OwnerRepository#search}.
+ */
+record OwnerPage(List<OwnerView> owners, String next) {
+
+    static OwnerPage of(Window<OwnerView> window) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return new OwnerPage(window.getContent(), null);
+        }
+        OwnerView last = window.getContent().get(window.size() - 1);
+        String cursor = last.id() + ":" + last.lastName();
+        return new OwnerPage(window.getContent(),
+            Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @throws IllegalArgumentException when the cursor was not produced by {@link #of}
+     */
+    static KeysetScrollPosition position(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = decoded.indexOf(':');
+        if (separator < 1) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor);
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("lastName", decoded.substring(separator + 1));
+        keys.put("id", Integer.valueOf(decoded.substring(0, separator)));
+        return ScrollPosition.forward(keys);
+    }
+}
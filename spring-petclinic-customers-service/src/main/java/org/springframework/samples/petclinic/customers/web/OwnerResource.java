@@ -16,16 +16,25 @@
 package org.springframework.samples.petclinic.customers.web;
 
 import io.micrometer.core.annotation.Timed;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.samples.petclinic.customers.web.mapper.OwnerEntityMapper;
 import org.springframework.samples.petclinic.customers.model.Owner;
+import org.springframework.samples.petclinic.customers.model.OwnerChanges;
 import org.springframework.samples.petclinic.customers.model.OwnerRepository;
+import org.springframework.samples.petclinic.customers.model.OwnerView;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,10 +54,15 @@ class OwnerResource {
 
     private final OwnerRepository ownerRepository;
     private final OwnerEntityMapper ownerEntityMapper;
+    private final OwnerExporter ownerExporter;
+    private final OwnerImporter ownerImporter;
 
-    OwnerResource(OwnerRepository ownerRepository, OwnerEntityMapper ownerEntityMapper) {
+    OwnerResource(OwnerRepository ownerRepository, OwnerEntityMapper ownerEntityMapper, OwnerExporter ownerExporter,
+                  OwnerImporter ownerImporter) {
         this.ownerRepository = ownerRepository;
         this.ownerEntityMapper = ownerEntityMapper;
+        this.ownerExporter = ownerExporter;
+        this.ownerImporter = ownerImporter;
     }
 
     /**
@@ -65,16 +79,55 @@ class OwnerResource {
      * Read single Owner
      */
     @GetMapping(value = "/{ownerId}")
-    public Optional<Owner> findOwner(@PathVariable("ownerId") @Min(1) int ownerId) {
-        return ownerRepository.findById(ownerId);
+    public Optional<OwnerView> findOwner(@PathVariable("ownerId") @Min(1) int ownerId) {
+        return ownerRepository.findViewById(ownerId);
     }
 
     /**
      * Read List of Owners
      */
     @GetMapping
-    public List<Owner> findAll() {
-        return ownerRepository.findAll();
+    public List<OwnerView> findAll() {
+        return ownerRepository.findAllViews();
+    }
+
+    /**
+     * Export every owner with their pets as newline-delimited JSON, streamed as the owners are read. Unlike
+     * {@link #findAll()}, memory use does not depend on the number of owners.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportOwners(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        long count = ownerExporter.export(response.getOutputStream());
+        log.info("Exported {} owners", count);
+    }
+
+    /**
+     * Import owners with their pets from newline-delimited JSON, one {@link OwnerImportRequest} per line. Invalid
+     * lines are skipped and reported in the response.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public OwnerImporter.ImportResult importOwners(InputStream body) throws IOException {
+        return ownerImporter.importOwners(body);
+    }
+
+    /**
+     * Read a page of the owners whose last name starts with {@code lastName} and who live in {@code city}, both
+     * optional, ordered by last name. The next page is read by passing the {@code next} cursor of a page as
+     * {@code after}.
+     */
+    @GetMapping("/search")
+    public OwnerPage searchOwners(@RequestParam(required = false) String lastName,
+                                  @RequestParam(required = false) String city,
+                                  @RequestParam(required = false) String after,
+                                  @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+        KeysetScrollPosition position;
+        try {
+            position = OwnerPage.position(after);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+        return OwnerPage.of(ownerRepository.search(lastName, city, position, size));
     }
 
     /**
@@ -89,4 +142,16 @@ class OwnerResource {
         log.info("Saving owner {}", ownerModel);
         ownerRepository.save(ownerModel);
     }
+
+    /**
+     * Partially update Owner: only the fields present in the request are written, without reading the owner first.
+     */
+    @PatchMapping(value = "/{ownerId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void patchOwner(@PathVariable("ownerId") @Min(1) int ownerId, @Valid @RequestBody OwnerChanges changes) {
+        log.info("Updating owner {} with {}", ownerId, changes);
+        if (!ownerRepository.update(ownerId, changes)) {
+            throw new ResourceNotFoundException("Owner " + ownerId + " not found");
+        }
+    }
 }
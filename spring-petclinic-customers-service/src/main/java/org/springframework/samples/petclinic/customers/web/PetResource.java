@@ -20,11 +20,10 @@ import jakarta.validation.constraints.Min;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.samples.petclinic.customers.model.*;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * @author Juergen Hoeller
  * @author Ken Krebs
@@ -40,28 +39,38 @@ class PetResource {
 
     private final PetRepository petRepository;
     private final OwnerRepository ownerRepository;
+    private final PetTypeCache petTypeCache;
 
-    PetResource(PetRepository petRepository, OwnerRepository ownerRepository) {
+    PetResource(PetRepository petRepository, OwnerRepository ownerRepository, PetTypeCache petTypeCache) {
         this.petRepository = petRepository;
         this.ownerRepository = ownerRepository;
+        this.petTypeCache = petTypeCache;
     }
 
-    @GetMapping("/petTypes")
-    public List<PetType> getPetTypes() {
-        return petRepository.findPetTypes();
+    /**
+     * Served from the JSON serialized once by {@link PetTypeCache}.
+     */
+    @GetMapping(value = "/petTypes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getPetTypes() {
+        return petTypeCache.json();
     }
 
+    /**
+     * The owner is neither loaded nor are their pets: the pet only needs a reference to it, once its existence has
+     * been checked.
+     */
     @PostMapping("/owners/{ownerId}/pets")
     @ResponseStatus(HttpStatus.CREATED)
     public Pet processCreationForm(
         @RequestBody PetRequest petRequest,
         @PathVariable("ownerId") @Min(1) int ownerId) {
 
-        Owner owner = ownerRepository.findById(ownerId)
-            .orElseThrow(() -> new ResourceNotFoundException("Owner " + ownerId + " not found"));
+        if (!ownerRepository.existsById(ownerId)) {
+            throw new ResourceNotFoundException("Owner " + ownerId + " not found");
+        }
 
         final Pet pet = new Pet();
-        owner.addPet(pet);
+        pet.setOwner(ownerRepository.getReferenceById(ownerId));
         return save(pet, petRequest);
     }
 
@@ -78,10 +87,11 @@ class PetResource {
         pet.setName(petRequest.name());
         pet.setBirthDate(petRequest.birthDate());
 
-        petRepository.findPetTypeById(petRequest.typeId())
+        petTypeCache.findById(petRequest.typeId())
             .ifPresent(pet::setType);
 
-        log.info("Saving pet {}", pet);
+        // not the whole pet, which would load its owner
+        log.info("Saving pet {} of owner {}", pet.getName(), pet.getOwner().getId());
         return petRepository.save(pet);
     }
 
@@ -0,0 +1,88 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.samples.petclinic.customers.model.PetRepository;
+import org.springframework.samples.petclinic.customers.model.PetType;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pet types are reference data: a handful of rows that almost never change. They are loaded once at startup into an
+ * array indexed by id, along with the JSON of {@code GET /petTypes}, and only reloaded by {@link #refresh()}, see
+ * {@link PetTypesEndpoint}.
+ * <p>
+ * Each refresh replaces the whole snapshot, so readers never see a partially loaded cache.
+ */
+@Component
+class PetTypeCache implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(PetTypeCache.class);
+
+    private final PetRepository petRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private volatile Snapshot snapshot = new Snapshot(List.of(), new PetType[0], "[]".getBytes(StandardCharsets.UTF_8));
+
+    PetTypeCache(PetRepository petRepository, ObjectMapper objectMapper) {
+        this.petRepository = petRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        refresh();
+    }
+
+    /**
+     * Reload the pet types from the database.
+     */
+    public void refresh() {
+        List<PetType> petTypes = List.copyOf(petRepository.findPetTypes());
+        int maxId = petTypes.stream().mapToInt(PetType::getId).max().orElse(0);
+        PetType[] byId = new PetType[maxId + 1];
+        petTypes.forEach(petType -> byId[petType.getId()] = petType);
+        try {
+            snapshot = new Snapshot(petTypes, byId, objectMapper.writeValueAsBytes(petTypes));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Loaded {} pet types", petTypes.size());
+    }
+
+    /**
+     * @return the pet types ordered by name
+     */
+    List<PetType> petTypes() {
+        return snapshot.petTypes();
+    }
+
+    /**
+     * @return the JSON array of the pet types ordered by name
+     */
+    byte[] json() {
+        return snapshot.json();
+    }
+
+    /**
+     * Falls back to the database for a type added since the last refresh.
+     */
+    Optional<PetType> findById(int typeId) {
+        PetType[] byId = snapshot.byId();
+        if (typeId >= 0 && typeId < byId.length && byId[typeId] != null) {
+            return Optional.of(byId[typeId]);
+        }
+        return petRepository.findPetTypeById(typeId);
+    }
+
+    private record Snapshot(List<PetType> petTypes, PetType[] byId, byte[] json) {
+    }
+}
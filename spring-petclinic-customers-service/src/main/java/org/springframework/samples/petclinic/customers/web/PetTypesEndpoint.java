@@ -0,0 +1,35 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.samples.petclinic.customers.model.PetType;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Exposes the cached pet types at {@code /actuator/pettypes}; a {@code POST} reloads them after the {@code types}
+ * table was changed.
+ */
+@Component
+@Endpoint(id = "pettypes")
+class PetTypesEndpoint {
+
+    private final PetTypeCache petTypeCache;
+
+    PetTypesEndpoint(PetTypeCache petTypeCache) {
+        this.petTypeCache = petTypeCache;
+    }
+
+    @ReadOperation
+    List<PetType> petTypes() {
+        return petTypeCache.petTypes();
+    }
+
+    @WriteOperation
+    List<PetType> refresh() {
+        petTypeCache.refresh();
+        return petTypeCache.petTypes();
+    }
+}
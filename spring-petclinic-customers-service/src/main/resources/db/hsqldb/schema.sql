@@ -1,6 +1,8 @@
 DROP TABLE pets IF EXISTS;
 DROP TABLE types IF EXISTS;
 DROP TABLE owners IF EXISTS;
+DROP SEQUENCE pets_seq IF EXISTS;
+DROP SEQUENCE owners_seq IF EXISTS;
 
 CREATE TABLE types (
   id   INTEGER IDENTITY PRIMARY KEY,
@@ -8,15 +10,19 @@ CREATE TABLE types (
 );
 CREATE INDEX types_name ON types (name);
 
+-- owners are searched by last name and city regardless of case, like with the default collations of MySQL
 CREATE TABLE owners (
   id         INTEGER IDENTITY PRIMARY KEY,
   first_name VARCHAR(30),
-  last_name  VARCHAR(30),
+  last_name  VARCHAR_IGNORECASE(30),
   address    VARCHAR(255),
-  city       VARCHAR(80),
+  city       VARCHAR_IGNORECASE(80),
   telephone  VARCHAR(12)
 );
 CREATE INDEX owners_last_name ON owners (last_name);
+CREATE INDEX owners_city ON owners (city, last_name);
+-- pooled id generator of the owner entity, allocating 50 ids at a time
+CREATE SEQUENCE owners_seq START WITH 1000 INCREMENT BY 50;
 
 CREATE TABLE pets (
   id         INTEGER IDENTITY PRIMARY KEY,
@@ -28,3 +34,4 @@ CREATE TABLE pets (
 ALTER TABLE pets ADD CONSTRAINT fk_pets_owners FOREIGN KEY (owner_id) REFERENCES owners (id);
 ALTER TABLE pets ADD CONSTRAINT fk_pets_types FOREIGN KEY (type_id) REFERENCES types (id);
 CREATE INDEX pets_name ON pets (name);
+CREATE SEQUENCE pets_seq START WITH 1000 INCREMENT BY 50;
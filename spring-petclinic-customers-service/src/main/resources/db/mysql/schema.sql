@@ -16,7 +16,8 @@ CREATE TABLE IF NOT EXISTS owners (
   address VARCHAR(255),
   city VARCHAR(80),
   telephone VARCHAR(20),
-  INDEX(last_name)
+  INDEX(last_name),
+  INDEX(city, last_name)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS pets (
@@ -29,3 +30,17 @@ CREATE TABLE IF NOT EXISTS pets (
   FOREIGN KEY (owner_id) REFERENCES owners(id),
   FOREIGN KEY (type_id) REFERENCES types(id)
 ) engine=InnoDB;
+
+-- MySQL has no sequences: Hibernate emulates the pooled id generators of owners and pets with these tables, starting
+-- them past the ids already in use
+CREATE TABLE IF NOT EXISTS owners_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO owners_seq (next_val)
+  SELECT COALESCE(MAX(id), 0) + 1000 FROM owners HAVING (SELECT COUNT(*) FROM owners_seq) = 0;
+
+CREATE TABLE IF NOT EXISTS pets_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO pets_seq (next_val)
+  SELECT COALESCE(MAX(id), 0) + 1000 FROM pets HAVING (SELECT COUNT(*) FROM pets_seq) = 0;
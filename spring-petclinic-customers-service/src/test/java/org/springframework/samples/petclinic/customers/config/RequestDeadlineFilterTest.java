@@ -0,0 +1,59 @@
+package org.springframework.samples.petclinic.customers.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestDeadlineFilterTest {
+
+    private final RequestDeadlineFilter filter = new RequestDeadlineFilter();
+
+    @Test
+    void shouldRejectExpiredRequestBeforeDispatch() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/owners/1");
+        request.addHeader(RequestDeadlineFilter.HEADER, "0");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(request, response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(504);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void shouldExposeDeadlineWhileHandlingRequest() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/owners/1");
+        request.addHeader(RequestDeadlineFilter.HEADER, "2500");
+        AtomicReference<OptionalLong> remaining = new AtomicReference<>();
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(),
+            (req, res) -> remaining.set(RequestDeadlineFilter.remainingMillis()));
+
+        // Then
+        assertThat(remaining.get().getAsLong()).isBetween(1L, 2500L);
+        assertThat(RequestDeadlineFilter.remainingMillis()).isEmpty();
+    }
+
+    @Test
+    void shouldBoundTransactionTimeoutByDeadline() {
+        assertThat(DeadlineConfig.timeoutInSeconds(TransactionDefinition.TIMEOUT_DEFAULT, 2500)).isEqualTo(3);
+        assertThat(DeadlineConfig.timeoutInSeconds(2, 2500)).isEqualTo(2);
+        assertThatThrownBy(() -> DeadlineConfig.timeoutInSeconds(TransactionDefinition.TIMEOUT_DEFAULT, 0))
+            .isInstanceOf(TransactionTimedOutException.class);
+    }
+}
@@ -0,0 +1,139 @@
+package org.springframework.samples.petclinic.customers.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.customers.model.Owner;
+import org.springframework.samples.petclinic.customers.model.OwnerChanges;
+import org.springframework.samples.petclinic.customers.model.OwnerRepository;
+import org.springframework.samples.petclinic.customers.model.Pet;
+import org.springframework.samples.petclinic.customers.model.PetType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles({"test", "l2cache"})
+@Import(SecondLevelCacheConfig.class)
+// a read-write cache entry is only visible to transactions started after the one that cached it
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheConfigTest {
+
+    private static final String OWNER_REGION = Owner.class.getName();
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterBinder secondLevelCacheMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void restoreOwners() {
+        ownerRepository.update(2, new OwnerChanges(null, null, null, "Sun Prairie", null));
+        jdbcTemplate.update("DELETE FROM pets WHERE id > 13");
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void shouldReadOwnerFromSecondLevelCacheOnceLoaded() {
+        // Given
+        entityManager.find(Owner.class, 1);
+        statistics().clear();
+
+        // When
+        Owner owner = entityManager.find(Owner.class, 1);
+
+        // Then
+        assertThat(owner.getLastName()).isEqualTo("Franklin");
+        assertThat(owner.getPets()).hasSize(1);
+        assertThat(statistics().getPrepareStatementCount()).isZero();
+        assertThat(statistics().getDomainDataRegionStatistics(OWNER_REGION).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictPetsOfOwnerWhenPetIsAddedThroughItsOwnerReference() {
+        // Given
+        entityManager.find(Owner.class, 6);
+
+        // When
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Pet pet = new Pet();
+            pet.setName("Garfield");
+            pet.setType(entityManager.getReference(PetType.class, 1));
+            pet.setOwner(ownerRepository.getReferenceById(6));
+            entityManager.persist(pet);
+        });
+
+        // Then
+        assertThat(entityManager.find(Owner.class, 6).getPets())
+            .extracting(Pet::getName)
+            .containsExactly("Garfield", "Max", "Samantha");
+    }
+
+    @Test
+    void shouldServeOwnerViewFromQueryCacheUntilOwnerChanges() {
+        // Given
+        ownerRepository.findViewById(2);
+        statistics().clear();
+
+        // When
+        ownerRepository.findViewById(2);
+
+        // Then
+        assertThat(statistics().getPrepareStatementCount()).isZero();
+        assertThat(statistics().getQueryCacheHitCount()).isEqualTo(1);
+
+        // When
+        ownerRepository.update(2, new OwnerChanges(null, null, null, "Madison", null));
+
+        // Then
+        assertThat(ownerRepository.findViewById(2).orElseThrow().city()).isEqualTo("Madison");
+    }
+
+    @Test
+    void shouldPublishHitsAndMissesOfEachRegion() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        secondLevelCacheMetrics.bindTo(registry);
+
+        entityManager.find(Owner.class, 3);
+        FunctionCounter ownerHits = registry.find("cache.gets").tag("cache", OWNER_REGION).tag("result", "hit")
+            .functionCounter();
+        // the statistics of a region are kept for as long as the cache manager
+        double hitsBefore = ownerHits.count();
+
+        // When
+        entityManager.find(Owner.class, 3);
+
+        // Then
+        assertThat(ownerHits.count()).isEqualTo(hitsBefore + 1);
+        assertThat(registry.find("cache.gets").tags("result", "miss").functionCounters())
+            .hasSize(SecondLevelCacheConfig.REGIONS.size());
+    }
+}
@@ -0,0 +1,106 @@
+package org.springframework.samples.petclinic.customers.config;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import com.sun.net.httpserver.HttpServer;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.net.InetSocketAddress;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WarmUpRunnerTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+
+    private final Connection connection = mock(Connection.class);
+
+    private final ApplicationInfoManager applicationInfoManager = mock(ApplicationInfoManager.class);
+
+    @Test
+    void shouldFillConnectionPoolThenReportUp() throws Exception {
+        // Given
+        HikariDataSource hikari = new HikariDataSource();
+        hikari.setMinimumIdle(3);
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        when(dataSource.unwrap(HikariDataSource.class)).thenReturn(hikari);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        // When
+        runner(true).run(new DefaultApplicationArguments());
+
+        // Then
+        verify(dataSource, times(3)).getConnection();
+        verify(connection, times(3)).close();
+        verify(applicationInfoManager).setInstanceStatus(InstanceInfo.InstanceStatus.UP);
+    }
+
+    @Test
+    void shouldReportUpWhenDisabled() throws Exception {
+        // When
+        runner(false).run(new DefaultApplicationArguments());
+
+        // Then
+        verify(dataSource, never()).getConnection();
+        verify(applicationInfoManager).setInstanceStatus(InstanceInfo.InstanceStatus.UP);
+    }
+
+    @Test
+    void shouldStopAtFirstFailedRequest() throws Exception {
+        // Given
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("local.server.port", String.valueOf(server.getAddress().getPort()));
+        WarmUpProperties properties = new WarmUpProperties(true, 10, 1, Duration.ofSeconds(5), List.of("/owners/1"));
+
+        // When
+        try {
+            new WarmUpRunner(properties, environment, dataSource, provider()).run(new DefaultApplicationArguments());
+        } finally {
+            server.stop(0);
+        }
+
+        // Then
+        assertThat(requests).hasValue(1);
+        verify(applicationInfoManager).setInstanceStatus(InstanceInfo.InstanceStatus.UP);
+    }
+
+    private WarmUpRunner runner(boolean enabled) {
+        WarmUpProperties properties = new WarmUpProperties(enabled, 10, 2, Duration.ofSeconds(5), List.of("/owners/1"));
+        return new WarmUpRunner(properties, new MockEnvironment(), dataSource, provider());
+    }
+
+    @SuppressWarnings("unchecked")
+    private ObjectProvider<ApplicationInfoManager> provider() {
+        ObjectProvider<ApplicationInfoManager> provider = mock(ObjectProvider.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<ApplicationInfoManager>>getArgument(0).accept(applicationInfoManager);
+            return null;
+        }).when(provider).ifAvailable(any());
+        return provider;
+    }
+}
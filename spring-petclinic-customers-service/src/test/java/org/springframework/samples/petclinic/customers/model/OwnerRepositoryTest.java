@@ -0,0 +1,196 @@
+package org.springframework.samples.petclinic.customers.model;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class OwnerRepositoryTest {
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics() {
+        return entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void shouldReadOwnerViewWithOneStatementWhateverTheNumberOfPets() {
+        // Given
+        Owner owner = entityManager.find(Owner.class, 10);
+        PetType dog = entityManager.find(PetType.class, 2);
+        for (int i = 0; i < 20; i++) {
+            Pet pet = new Pet();
+            pet.setName("Pet " + i);
+            pet.setType(dog);
+            owner.addPet(pet);
+            entityManager.persist(pet);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics().clear();
+
+        // When
+        OwnerView view = ownerRepository.findViewById(10).orElseThrow();
+
+        // Then
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(1);
+        assertThat(view.lastName()).isEqualTo("Estaban");
+        assertThat(view.pets()).hasSize(22);
+        assertThat(view.pets().get(0).name()).isEqualTo("Lucky");
+        assertThat(view.pets().get(0).type().name()).isEqualTo("dog");
+    }
+
+    @Test
+    void shouldReadAllOwnerViewsWithOneStatement() {
+        // Given
+        statistics().clear();
+
+        // When
+        List<OwnerView> views = ownerRepository.findAllViews();
+
+        // Then
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(1);
+        assertThat(views).extracting(OwnerView::id).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        assertThat(views.get(2).pets()).extracting(OwnerView.PetView::name).containsExactly("Jewel", "Rosy");
+    }
+
+    @Test
+    void shouldReadOwnerViewWithoutPets() {
+        // Given
+        Owner owner = new Owner();
+        owner.setFirstName("Jon");
+        owner.setLastName("Arbuckle");
+        owner.setAddress("711 Maple St");
+        owner.setCity("Muncie");
+        owner.setTelephone("7655550100");
+        int id = entityManager.persistAndFlush(owner).getId();
+
+        // When
+        OwnerView view = ownerRepository.findViewById(id).orElseThrow();
+
+        // Then
+        assertThat(view.firstName()).isEqualTo("Jon");
+        assertThat(view.pets()).isEmpty();
+        assertThat(ownerRepository.findViewById(-1)).isEmpty();
+    }
+
+    @Test
+    void shouldUpdateOnlyTheChangedColumnsWithOneStatement() {
+        // Given
+        statistics().clear();
+
+        // When
+        boolean updated = ownerRepository.update(1, new OwnerChanges(null, null, "711 Maple St", "Muncie", null));
+
+        // Then
+        assertThat(updated).isTrue();
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics().getEntityLoadCount()).isZero();
+        entityManager.clear();
+        Owner owner = entityManager.find(Owner.class, 1);
+        assertThat(owner.getAddress()).isEqualTo("711 Maple St");
+        assertThat(owner.getCity()).isEqualTo("Muncie");
+        assertThat(owner.getLastName()).isEqualTo("Franklin");
+        assertThat(owner.getTelephone()).isEqualTo("6085551023");
+    }
+
+    @Test
+    void shouldTellWhetherOwnerExistsWhenUpdating() {
+        // Then
+        assertThat(ownerRepository.update(-1, new OwnerChanges("Jon", null, null, null, null))).isFalse();
+        assertThat(ownerRepository.update(1, new OwnerChanges(null, null, null, null, null))).isTrue();
+        assertThat(ownerRepository.update(-1, new OwnerChanges(null, null, null, null, null))).isFalse();
+    }
+
+    @Test
+    void shouldPageThroughOwnersOrderedByLastName() {
+        // When
+        List<String> lastNames = new ArrayList<>();
+        KeysetScrollPosition position = ScrollPosition.keyset();
+        Window<OwnerView> page;
+        do {
+            page = ownerRepository.search(null, null, position, 3);
+            page.forEach(owner -> lastNames.add(owner.lastName() + owner.id()));
+            position = page.isEmpty() ? position : (KeysetScrollPosition) page.positionAt(page.size() - 1);
+        } while (page.hasNext());
+
+        // Then
+        assertThat(lastNames).containsExactly("Black7", "Coleman6", "Davis2", "Davis4", "Escobito8", "Estaban10",
+            "Franklin1", "McTavish5", "Rodriquez3", "Schroeder9");
+    }
+
+    @Test
+    void shouldSearchOwnersWithTheirPetsWithTwoStatementsWhateverTheSizeOfThePage() {
+        // Given
+        statistics().clear();
+
+        // When
+        Window<OwnerView> page = ownerRepository.search(null, null, ScrollPosition.keyset(), 100);
+
+        // Then
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics().getEntityLoadCount()).isZero();
+        assertThat(page.getContent()).extracting(OwnerView::id).containsExactly(7, 6, 2, 4, 8, 10, 1, 5, 3, 9);
+        assertThat(page.getContent().get(8).pets()).extracting(OwnerView.PetView::name).containsExactly("Jewel", "Rosy");
+    }
+
+    @Test
+    void shouldFilterByLastNamePrefixAndCity() {
+        // When
+        Window<OwnerView> byLastName = ownerRepository.search("Es", null, ScrollPosition.keyset(), 20);
+        Window<OwnerView> byCity = ownerRepository.search(null, "Madison", ScrollPosition.keyset(), 2);
+
+        // Then
+        assertThat(byLastName.getContent()).extracting(OwnerView::lastName).containsExactly("Escobito", "Estaban");
+        assertThat(byLastName.hasNext()).isFalse();
+        assertThat(byCity.getContent()).extracting(OwnerView::lastName).containsExactly("Escobito", "Franklin");
+        assertThat(byCity.hasNext()).isTrue();
+    }
+
+    @Test
+    void shouldFilterRegardlessOfCase() {
+        // When
+        Window<OwnerView> byLastName = ownerRepository.search("davis", null, ScrollPosition.keyset(), 20);
+        Window<OwnerView> byCity = ownerRepository.search("f", "MADISON", ScrollPosition.keyset(), 20);
+
+        // Then
+        assertThat(byLastName.getContent()).extracting(OwnerView::id).containsExactly(2, 4);
+        assertThat(byCity.getContent()).extracting(OwnerView::lastName).containsExactly("Franklin");
+    }
+
+    @Test
+    void shouldTreatWildcardsInPrefixLiterally() {
+        // When
+        Window<OwnerView> owners = ownerRepository.search("%", null, ScrollPosition.keyset(), 20);
+
+        // Then
+        assertThat(owners).isEmpty();
+    }
+
+    @Test
+    void shouldRejectPositionWithoutKeys() {
+        // Then
+        assertThatExceptionOfType(InvalidDataAccessApiUsageException.class).isThrownBy(() ->
+            ownerRepository.search(null, null, ScrollPosition.forward(Map.of("id", 1)), 20));
+    }
+}
@@ -0,0 +1,70 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.customers.model.PetType;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(OwnerExporter.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class OwnerExporterTest {
+
+    @Autowired
+    private OwnerExporter ownerExporter;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldWriteEachOwnerOnItsOwnLine() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long count = ownerExporter.export(out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        List<Integer> ids = new ArrayList<>();
+        for (String line : lines) {
+            ids.add(objectMapper.readTree(line).get("id").asInt());
+        }
+        assertThat(count).isEqualTo(10);
+        assertThat(ids).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        JsonNode rodriquez = objectMapper.readTree(lines[2]);
+        assertThat(rodriquez.get("pets")).extracting(pet -> pet.get("name").asText()).containsExactly("Jewel", "Rosy");
+        assertThat(rodriquez.get("pets").get(0).get("type").get("name").asText()).isEqualTo("dog");
+    }
+
+    @Test
+    void shouldDetachOwnersAndPetsOnceWritten() throws Exception {
+        // When
+        ownerExporter.export(new ByteArrayOutputStream());
+
+        // Then only the handful of pet types shared by all pets remains in the persistence context
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityKeys())
+            .extracting(key -> ((EntityKey) key).getEntityName())
+            .containsOnly(PetType.class.getName());
+    }
+}
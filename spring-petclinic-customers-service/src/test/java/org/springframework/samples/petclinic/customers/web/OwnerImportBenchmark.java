@@ -0,0 +1,117 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.customers.CustomersServiceApplication;
+import org.springframework.samples.petclinic.customers.web.OwnerImporter.ImportResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second of the bulk owner import, with and without JDBC batching, against an in-memory HSQLDB and a MySQL
+ * server. Every row is an owner with two pets.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=OwnerImportBenchmark}. The MySQL runs need a server with a
+ * {@code petclinic} database, by default on {@code localhost:3306} with user {@code root} and password
+ * {@code petclinic}; set the {@code MYSQL_URL}, {@code MYSQL_USER} and {@code MYSQL_PASSWORD} environment variables
+ * otherwise. Without a server, JMH reports the MySQL runs as failed and carries on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OwnerImportBenchmark {
+
+    private static final int ROWS = 5_000;
+
+    @Param({"hsqldb", "mysql"})
+    private String database;
+
+    @Param({"1", "50"})
+    private int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+
+    private OwnerImporter ownerImporter;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(CustomersServiceApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(Map.of(
+                "spring.cloud.config.enabled", "false",
+                "eureka.client.enabled", "false",
+                "petclinic.warm-up.enabled", "false",
+                "management.tracing.enabled", "false",
+                "spring.jpa.properties.hibernate.jdbc.batch_size", Integer.toString(jdbcBatchSize)));
+        if (database.equals("mysql")) {
+            application.properties(Map.of(
+                "spring.datasource.url", Objects.requireNonNullElse(System.getenv("MYSQL_URL"),
+                    "jdbc:mysql://localhost:3306/petclinic?rewriteBatchedStatements=true"),
+                "spring.datasource.username", Objects.requireNonNullElse(System.getenv("MYSQL_USER"), "root"),
+                "spring.datasource.password", Objects.requireNonNullElse(System.getenv("MYSQL_PASSWORD"), "petclinic"),
+                "spring.sql.init.mode", "always",
+                "spring.sql.init.schema-locations", "classpath*:db/mysql/schema.sql",
+                "spring.sql.init.data-locations", "classpath*:db/mysql/data.sql",
+                // the GRANT of the schema is rejected by recent servers
+                "spring.sql.init.continue-on-error", "true"));
+        } else {
+            application.profiles("test");
+        }
+        context = application.run();
+        ownerImporter = context.getBean(OwnerImporter.class);
+
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            lines.append("""
+                {"firstName":"Jon","lastName":"Arbuckle%d","address":"711 Maple St","city":"Muncie",\
+                "telephone":"7655550100","pets":[{"name":"Garfield","birthDate":"2019-06-19","typeId":1},\
+                {"name":"Odie","birthDate":"2020-02-14","typeId":2}]}
+                """.formatted(i));
+        }
+        body = lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteImportedOwners() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM pets WHERE owner_id > 10");
+        jdbcTemplate.update("DELETE FROM owners WHERE id > 10");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ImportResult importOwners() throws IOException {
+        return ownerImporter.importOwners(new ByteArrayInputStream(body));
+    }
+}
@@ -0,0 +1,135 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.customers.config.ImportProperties;
+import org.springframework.samples.petclinic.customers.model.OwnerRepository;
+import org.springframework.samples.petclinic.customers.model.OwnerView;
+import org.springframework.samples.petclinic.customers.web.OwnerImporter.ImportResult;
+import org.springframework.samples.petclinic.customers.web.OwnerImporter.LineError;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "petclinic.import.chunk-size=3"
+})
+@ActiveProfiles("test")
+@Import({OwnerImporter.class, PetTypeCache.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@EnableConfigurationProperties(ImportProperties.class)
+// every chunk is committed in its own transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OwnerImporterTest {
+
+    @Autowired
+    private OwnerImporter ownerImporter;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void deleteImportedOwners() {
+        jdbcTemplate.update("DELETE FROM pets WHERE owner_id > 10");
+        jdbcTemplate.update("DELETE FROM owners WHERE id > 10");
+    }
+
+    private ImportResult importOwners(String... lines) throws Exception {
+        byte[] body = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return ownerImporter.importOwners(new ByteArrayInputStream(body));
+    }
+
+    private static String owner(String lastName, String petName) {
+        return """
+            {"firstName":"Jon","lastName":"%s","address":"711 Maple St","city":"Muncie","telephone":"7655550100",\
+            "pets":[{"name":"%s","birthDate":"2019-06-19","typeId":1}]}""".formatted(lastName, petName);
+    }
+
+    private List<OwnerView> importedOwners() {
+        return ownerRepository.findAllViews().stream().filter(owner -> owner.id() > 10).toList();
+    }
+
+    @Test
+    void shouldImportOwnersWithTheirPetsInBatches() throws Exception {
+        // Given
+        String[] lines = new String[30];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = owner("Arbuckle" + i, "Garfield" + i);
+        }
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        ImportResult result = importOwners(lines);
+
+        // Then
+        assertThat(result).isEqualTo(new ImportResult(30, 0, List.of()));
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(30);
+        List<OwnerView> owners = importedOwners();
+        assertThat(owners).hasSize(30);
+        assertThat(owners.get(0).pets()).singleElement().satisfies(pet -> {
+            assertThat(pet.name()).isEqualTo("Garfield0");
+            assertThat(pet.type().name()).isEqualTo("cat");
+        });
+    }
+
+    @Test
+    void shouldReportInvalidLinesAndImportTheOthers() throws Exception {
+        // When
+        ImportResult result = importOwners(
+            owner("Arbuckle", "Garfield"),
+            "{\"firstName\":",
+            "",
+            owner("", "Odie"),
+            owner("Arbuckle", "Nermal").replace("\"typeId\":1", "\"typeId\":42"),
+            owner("Arbuckle", "Odie").replaceAll("\\[.*]", "[null]"),
+            owner("Wilson", "Pooky"));
+
+        // Then
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(4);
+        assertThat(result.errors()).extracting(LineError::line).containsExactly(2, 4, 5, 6);
+        assertThat(result.errors().get(1).message()).isEqualTo("lastName must not be blank");
+        assertThat(result.errors().get(2).message()).isEqualTo("Unknown pet type 42");
+        assertThat(result.errors().get(3).message()).startsWith("pets[0]").endsWith("must not be null");
+        assertThat(importedOwners()).extracting(OwnerView::lastName).containsExactly("Arbuckle", "Wilson");
+    }
+
+    @Test
+    void shouldOnlyReportTheLineThatFailsToSaveInAChunk() throws Exception {
+        // When the pet name of the second line is too long for its column
+        ImportResult result = importOwners(
+            owner("Arbuckle", "Garfield"),
+            owner("Wilson", "Garfield".repeat(5)),
+            owner("Jones", "Nermal"));
+
+        // Then
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.errors()).extracting(LineError::line).containsExactly(2);
+        assertThat(importedOwners()).extracting(OwnerView::lastName).containsExactly("Arbuckle", "Jones");
+    }
+}
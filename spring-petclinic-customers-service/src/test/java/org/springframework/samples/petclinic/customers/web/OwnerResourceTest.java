@@ -1,13 +1,21 @@
 package org.springframework.samples.petclinic.customers.web;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.http.MediaType;
 import org.springframework.samples.petclinic.customers.model.Owner;
+import org.springframework.samples.petclinic.customers.model.OwnerChanges;
 import org.springframework.samples.petclinic.customers.model.OwnerRepository;
+import org.springframework.samples.petclinic.customers.model.OwnerView;
+import org.springframework.samples.petclinic.customers.model.OwnerView.PetTypeView;
+import org.springframework.samples.petclinic.customers.model.OwnerView.PetView;
 import org.springframework.samples.petclinic.customers.web.mapper.OwnerEntityMapper;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -15,9 +23,12 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -37,6 +48,12 @@ class OwnerResourceTest {
     @MockitoBean
     private OwnerEntityMapper ownerEntityMapper;
 
+    @MockitoBean
+    private OwnerExporter ownerExporter;
+
+    @MockitoBean
+    private OwnerImporter ownerImporter;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -88,15 +105,18 @@ class OwnerResourceTest {
     @Test
     void shouldFindOwnerById() throws Exception {
         // Given
-        Owner owner = setupOwner(1, "George", "Bush");
-        given(ownerRepository.findById(1)).willReturn(Optional.of(owner));
+        OwnerView owner = new OwnerView(1, "George", "Bush", "123 Main St", "Springfield", "5551234567",
+            List.of(new PetView(7, "Leo", null, new PetTypeView(1, "cat"))));
+        given(ownerRepository.findViewById(1)).willReturn(Optional.of(owner));
 
         // When & Then
         mvc.perform(get("/owners/1")
                 .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.firstName").value("George"))
-            .andExpect(jsonPath("$.lastName").value("Bush"));
+            .andExpect(jsonPath("$.lastName").value("Bush"))
+            .andExpect(jsonPath("$.pets[0].name").value("Leo"))
+            .andExpect(jsonPath("$.pets[0].type.name").value("cat"));
     }
 
     @Test
@@ -107,12 +127,46 @@ class OwnerResourceTest {
             .andExpect(status().isBadRequest()); // @Min(1) violation
     }
 
+    @Test
+    void shouldSearchOwnersWithCursorOfNextPage() throws Exception {
+        // Given
+        OwnerView owner1 = new OwnerView(1, "George", "Davis", "123 Main St", "Springfield", "5551234567", List.of());
+        OwnerView owner2 = new OwnerView(2, "Jane", "Davison", "123 Main St", "Springfield", "5551234567", List.of());
+        given(ownerRepository.search(eq("Da"), isNull(), any(KeysetScrollPosition.class), eq(2)))
+            .willReturn(Window.from(List.of(owner1, owner2), index -> ScrollPosition.keyset(), true));
+
+        // When & Then
+        String next = JsonPath.read(mvc.perform(get("/owners/search?lastName=Da&size=2")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.owners[1].lastName").value("Davison"))
+            .andExpect(jsonPath("$.next").isNotEmpty())
+            .andReturn().getResponse().getContentAsString(), "$.next");
+
+        given(ownerRepository.search(eq("Da"), isNull(), any(KeysetScrollPosition.class), eq(2)))
+            .willReturn(Window.from(List.of(), index -> ScrollPosition.keyset(), false));
+        mvc.perform(get("/owners/search?lastName=Da&size=2&after=" + next)
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.next").doesNotExist());
+
+        verify(ownerRepository).search("Da", null, ScrollPosition.forward(Map.of("lastName", "Davison", "id", 2)), 2);
+    }
+
+    @Test
+    void shouldReturnBadRequestForInvalidCursor() throws Exception {
+        // When & Then
+        mvc.perform(get("/owners/search?after=bm9wZQ")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     void shouldFindAllOwners() throws Exception {
         // Given
-        Owner owner1 = setupOwner(1, "George", "Bush");
-        Owner owner2 = setupOwner(2, "Jane", "Doe");
-        given(ownerRepository.findAll()).willReturn(List.of(owner1, owner2));
+        OwnerView owner1 = new OwnerView(1, "George", "Bush", "123 Main St", "Springfield", "5551234567", List.of());
+        OwnerView owner2 = new OwnerView(2, "Jane", "Doe", "123 Main St", "Springfield", "5551234567", List.of());
+        given(ownerRepository.findAllViews()).willReturn(List.of(owner1, owner2));
 
         // When & Then
         mvc.perform(get("/owners")
@@ -152,4 +206,40 @@ class OwnerResourceTest {
                 .content(objectMapper.writeValueAsString(ownerRequest)))
             .andExpect(status().isBadRequest()); // @Min(1) violation
     }
+
+    @Test
+    void shouldPatchOwner() throws Exception {
+        // Given
+        OwnerChanges changes = new OwnerChanges(null, null, "711 Maple St", "Muncie", null);
+        given(ownerRepository.update(1, changes)).willReturn(true);
+
+        // When & Then
+        mvc.perform(patch("/owners/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"address\":\"711 Maple St\",\"city\":\"Muncie\"}"))
+            .andExpect(status().isNoContent());
+
+        verify(ownerRepository).update(1, changes);
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenPatchingUnknownOwner() throws Exception {
+        // Given
+        given(ownerRepository.update(eq(99), any(OwnerChanges.class))).willReturn(false);
+
+        // When & Then
+        mvc.perform(patch("/owners/99")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"city\":\"Muncie\"}"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldReturnBadRequestForBlankFieldOnPatch() throws Exception {
+        // When & Then
+        mvc.perform(patch("/owners/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lastName\":\" \"}"))
+            .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,61 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.customers.model.Owner;
+import org.springframework.samples.petclinic.customers.model.Pet;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({PetResource.class, PetTypeCache.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class PetResourceStatementCountTest {
+
+    @Autowired
+    private PetResource petResource;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void shouldCreatePetWithoutLoadingItsOwner() {
+        // Given
+        statistics().clear();
+
+        // When
+        Pet pet = petResource.processCreationForm(new PetRequest(0, new Date(), "Garfield", 1), 6);
+        entityManager.flush();
+
+        // Then the owner exists query, the pet id sequence and the insert
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics().getEntityLoadCount()).isZero();
+        entityManager.clear();
+        assertThat(entityManager.find(Owner.class, 6).getPets()).extracting(Pet::getName)
+            .containsExactly("Garfield", "Max", "Samantha");
+        assertThat(pet.getType().getName()).isEqualTo("cat");
+    }
+
+    @Test
+    void shouldNotCreatePetForUnknownOwner() {
+        // When & Then
+        assertThatThrownBy(() -> petResource.processCreationForm(new PetRequest(0, new Date(), "Garfield", 1), 99))
+            .isInstanceOf(ResourceNotFoundException.class);
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.samples.petclinic.customers.model.Owner;
 import org.springframework.samples.petclinic.customers.model.OwnerRepository;
@@ -21,13 +22,17 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(PetResource.class)
+@Import(PetTypeCache.class)
 @ActiveProfiles("test")
 class PetResourceTest {
 
@@ -40,6 +45,9 @@ class PetResourceTest {
     @MockitoBean
     private OwnerRepository ownerRepository;
 
+    @Autowired
+    private PetTypeCache petTypeCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -79,6 +87,7 @@ class PetResourceTest {
         List<PetType> petTypes = List.of(dog, cat);
 
         given(petRepository.findPetTypes()).willReturn(petTypes);
+        petTypeCache.refresh();
 
         mvc.perform(get("/petTypes")
                 .accept(MediaType.APPLICATION_JSON))
@@ -94,7 +103,7 @@ class PetResourceTest {
     void shouldReturnNotFoundWhenCreatingPetForNonExistentOwner() throws Exception {
         PetRequest petRequest = new PetRequest(0, new Date(), "Basil", 6);
 
-        given(ownerRepository.findById(999)).willReturn(Optional.empty());
+        given(ownerRepository.existsById(999)).willReturn(false);
 
         mvc.perform(post("/owners/999/pets")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -121,15 +130,17 @@ class PetResourceTest {
         Pet updatedPet = setupPet(2, "Max", petType, owner);
 
         given(petRepository.findById(2)).willReturn(Optional.of(existingPet));
-        given(petRepository.findPetTypeById(6)).willReturn(Optional.of(petType));
+        given(petRepository.findPetTypes()).willReturn(List.of(petType));
         given(petRepository.save(any(Pet.class))).willReturn(updatedPet);
+        petTypeCache.refresh();
 
         mvc.perform(put("/owners/1/pets/2")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(petRequest)))
             .andExpect(status().isNoContent());
 
-        verify(petRepository).save(any(Pet.class));
+        verify(petRepository).save(argThat(pet -> pet.getType() == petType));
+        verify(petRepository, never()).findPetTypeById(anyInt());
     }
 
     @Test
@@ -0,0 +1,89 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.customers.model.Owner;
+import org.springframework.samples.petclinic.customers.model.Pet;
+import org.springframework.samples.petclinic.customers.model.PetRepository;
+import org.springframework.samples.petclinic.customers.model.PetType;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(PetTypeCache.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class PetTypeCacheTest {
+
+    @Autowired
+    private PetTypeCache petTypeCache;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void shouldLoadPetTypesOrderedByNameAtStartup() {
+        // Then
+        assertThat(petTypeCache.petTypes()).extracting(PetType::getName)
+            .containsExactly("bird", "cat", "dog", "hamster", "lizard", "snake");
+        assertThat(new String(petTypeCache.json(), StandardCharsets.UTF_8))
+            .startsWith("[{\"id\":5,\"name\":\"bird\"}");
+    }
+
+    @Test
+    void shouldCreatePetWithCachedTypeWithoutLookingItUp() {
+        // Given
+        Owner owner = entityManager.find(Owner.class, 1);
+        statistics().clear();
+
+        // When
+        Pet pet = new Pet();
+        pet.setName("Garfield");
+        petTypeCache.findById(1).ifPresent(pet::setType);
+        owner.addPet(pet);
+        petRepository.saveAndFlush(pet);
+
+        // Then
+        assertThat(statistics().getEntityLoadCount()).isZero();
+        assertThat(statistics().getQueryExecutionCount()).isZero();
+        assertThat(statistics().getEntityInsertCount()).isEqualTo(1);
+        entityManager.clear();
+        assertThat(petRepository.findById(pet.getId()).orElseThrow().getType().getName()).isEqualTo("cat");
+    }
+
+    @Test
+    void shouldFallBackToDatabaseForTypeAddedSinceRefresh() {
+        // Given
+        PetType ferret = new PetType();
+        ferret.setName("ferret");
+        entityManager.persist(ferret);
+        entityManager.flush();
+
+        // Then
+        assertThat(petTypeCache.findById(ferret.getId())).containsSame(ferret);
+        assertThat(petTypeCache.petTypes()).extracting(PetType::getName).doesNotContain("ferret");
+
+        // When
+        petTypeCache.refresh();
+
+        // Then
+        assertThat(petTypeCache.petTypes()).extracting(PetType::getName).contains("ferret");
+    }
+}
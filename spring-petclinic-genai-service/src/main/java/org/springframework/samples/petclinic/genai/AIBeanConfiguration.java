@@ -1,5 +1,7 @@
 package org.springframework.samples.petclinic.genai;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.memory.InMemoryChatMemory;
 import org.springframework.ai.embedding.EmbeddingModel;
@@ -8,8 +10,13 @@ import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.util.List;
+
 /**
  * A Configuration class for beans used by the Chat Client.
  *
@@ -28,9 +35,19 @@ public class AIBeanConfiguration {
 		return new SimpleVectorStore(embeddingModel);
 	}
 	
+    /**
+     * Services are asked to answer in Smile, the binary JSON format, and fall back to JSON when they do not
+     * support it. Request bodies are still sent as JSON. The deadline of the chat request is passed on to them.
+     */
     @Bean
     @LoadBalanced
-    public WebClient.Builder loadBalancedWebClientBuilder() {
-        return WebClient.builder();
+    public WebClient.Builder loadBalancedWebClientBuilder(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        MediaType smile = new MediaType("application", "x-jackson-smile");
+        // without explicit mime types, the decoder would claim the JSON ones
+        return WebClient.builder()
+            .codecs(configurer -> configurer.customCodecs().register(new Jackson2SmileDecoder(smileMapper, smile)))
+            .defaultHeaders(headers -> headers.setAccept(List.of(smile, MediaType.APPLICATION_JSON)))
+            .filter(RequestDeadlineFilter.propagation());
     }
 }
@@ -0,0 +1,79 @@
+package org.springframework.samples.petclinic.genai;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Honours the deadline propagated by the api-gateway in the {@value #HEADER} header, the time left in milliseconds
+ * before the caller gives up. Requests that are already expired are rejected before being dispatched, and the calls
+ * made to the other services while answering a chat message pass the time left on, see {@link #propagation()}.
+ */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    private static final String DEADLINE_ATTRIBUTE = RequestDeadlineFilter.class.getName() + ".deadline";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        Long timeout = parseTimeout(request.getHeader(HEADER));
+        if (timeout != null && timeout <= 0) {
+            response.sendError(HttpStatus.GATEWAY_TIMEOUT.value(), "Request deadline exceeded");
+            return;
+        }
+        if (timeout != null) {
+            request.setAttribute(DEADLINE_ATTRIBUTE, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout));
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Sends the time left before the deadline of the request being handled by the calling thread, if any, along
+     * with each call of a {@code WebClient}. A call is not sent at all once the deadline has passed.
+     */
+    public static ExchangeFilterFunction propagation() {
+        return (request, next) -> {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            Object deadline = attributes != null
+                ? attributes.getAttribute(DEADLINE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                : null;
+            if (!(deadline instanceof Long deadlineNanos)) {
+                return next.exchange(request);
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remaining <= 0) {
+                return Mono.error(new TimeoutException("Request deadline exceeded before calling " + request.url()));
+            }
+            return next.exchange(ClientRequest.from(request)
+                .headers(headers -> headers.set(HEADER, Long.toString(remaining)))
+                .build());
+        };
+    }
+
+    private static Long parseTimeout(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}